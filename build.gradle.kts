@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.0"
     id("io.spring.dependency-management") version "1.1.6"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.fitznet"
@@ -28,10 +29,18 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-mongodb")
     implementation("org.springframework.boot:spring-boot-starter-data-rest")
     implementation("org.springframework.boot:spring-boot-starter-web")
+    // Only used by the "reactive" profile; the servlet stack above stays the default
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-data-mongodb-reactive")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    implementation("org.springframework.boot:spring-boot-starter-aop")
+    implementation("io.micrometer:micrometer-tracing-bridge-otel")
+    implementation("io.opentelemetry:opentelemetry-exporter-otlp")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("com.google.code.gson:gson:2.11.0")
+    implementation("com.github.ben-manes.caffeine:caffeine")
 
     // JWT dependencies
     implementation("io.jsonwebtoken:jjwt-api:0.12.5")
@@ -45,6 +54,9 @@ dependencies {
     testImplementation("de.flapdoodle.embed:de.flapdoodle.embed.mongo.spring30x:4.11.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 
+    // TimerOverheadBenchmark records into the same registry the app exports
+    jmhImplementation("io.micrometer:micrometer-registry-prometheus")
+
     annotationProcessor("org.projectlombok:lombok")
     compileOnly("org.projectlombok:lombok")
 
@@ -57,3 +69,43 @@ tasks.withType<Test> {
 springBoot {
     buildInfo()
 }
+
+// Microbenchmarks live in src/jmh/java. Run with ./gradlew jmh, save a baseline on the same
+// machine with ./gradlew jmhSaveBaseline, then compare later runs with ./gradlew jmhCompare.
+// Scores only mean something on the hardware that produced them, so no baseline is committed.
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("benchmarks/baseline.json")
+
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(jmhResults)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    (project.findProperty("jmhInclude") as String?)?.let { includes.set(listOf(it)) }
+}
+
+tasks.register<JavaExec>("jmhCompare") {
+    group = "benchmark"
+    description =
+        "Fails if any benchmark in the latest JMH run regressed against the baseline saved " +
+            "locally by jmhSaveBaseline (benchmarks/baseline.json, not committed)."
+    mustRunAfter("jmh")
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.fitznet.fitznetapi.benchmark.BaselineComparison")
+    args(
+        jmhBaseline.asFile.path,
+        jmhResults.get().asFile.path,
+        (project.findProperty("jmhTolerance") as String?) ?: "10",
+    )
+}
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "benchmark"
+    description = "Stores the latest JMH results as this machine's benchmarks/baseline.json."
+    mustRunAfter("jmh")
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+    rename { jmhBaseline.asFile.name }
+}
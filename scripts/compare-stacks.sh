@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Loads a running instance and reports its peak thread count and open Mongo connections, so the
+# default servlet stack can be compared with the "reactive" and "virtual-threads" profiles on the
+# same host. Run it once against each, with the same arguments. Threads are OS threads, so virtual
+# threads only show up as their carriers.
+#
+#   scripts/compare-stacks.sh <pid> <bearer-token> [concurrency] [duration] [url]
+#
+# Needs `hey` (https://github.com/rakyll/hey) and `ss`. Linux only: threads come from /proc.
+set -euo pipefail
+
+pid=${1:?pid of the running application}
+token=${2:?a bearer token from /user/login}
+concurrency=${3:-1000}
+duration=${4:-60s}
+url=${5:-http://localhost:8080/user/readAll?limit=20}
+mongo_port=${MONGO_PORT:-27017}
+
+threads() {
+  awk '/^Threads:/ {print $2}' "/proc/$pid/status"
+}
+
+mongo_connections() {
+  # The app is the client side, so its Mongo sockets have the server port as the peer
+  ss -tnp state established "( dport = :$mongo_port )" 2>/dev/null | grep -c "pid=$pid," || true
+}
+
+peak_threads=$(threads)
+peak_connections=$(mongo_connections)
+echo "idle: threads=$peak_threads mongo_connections=$peak_connections"
+
+hey -z "$duration" -c "$concurrency" -H "Authorization: Bearer $token" "$url" > hey.out &
+load=$!
+
+while kill -0 "$load" 2>/dev/null; do
+  current_threads=$(threads)
+  current_connections=$(mongo_connections)
+  ((current_threads > peak_threads)) && peak_threads=$current_threads
+  ((current_connections > peak_connections)) && peak_connections=$current_connections
+  sleep 1
+done
+
+echo "peak under load (c=$concurrency): threads=$peak_threads mongo_connections=$peak_connections"
+grep -E 'Requests/sec|Average|99%|\[[0-9]+\]' hey.out
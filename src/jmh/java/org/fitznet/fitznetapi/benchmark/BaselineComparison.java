@@ -0,0 +1,88 @@
+package org.fitznet.fitznetapi.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file against a stored baseline and exits non-zero if any benchmark
+ * got worse by more than the given tolerance (in percent). Throughput benchmarks regress when
+ * the score drops; time-based modes regress when it rises.
+ *
+ * <p>Usage: {@code BaselineComparison <baseline.json> <results.json> [tolerancePercent]}
+ */
+public class BaselineComparison {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: BaselineComparison <baseline.json> <results.json> [tolerance%]");
+      System.exit(2);
+    }
+    File baselineFile = new File(args[0]);
+    File resultsFile = new File(args[1]);
+    double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+    if (!baselineFile.exists()) {
+      System.err.println(
+          "No baseline at " + baselineFile + ". Run ./gradlew jmh jmhSaveBaseline to create one.");
+      System.exit(2);
+    }
+    if (!resultsFile.exists()) {
+      System.err.println("No results at " + resultsFile + ". Run ./gradlew jmh first.");
+      System.exit(2);
+    }
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    Map<String, JsonNode> baseline = index(objectMapper.readTree(baselineFile));
+    Map<String, JsonNode> results = index(objectMapper.readTree(resultsFile));
+
+    int regressions = 0;
+    for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+      JsonNode before = baseline.get(entry.getKey());
+      if (before == null) {
+        System.out.printf("NEW        %s%n", entry.getKey());
+        continue;
+      }
+      JsonNode after = entry.getValue();
+      double oldScore = before.path("primaryMetric").path("score").asDouble();
+      double newScore = after.path("primaryMetric").path("score").asDouble();
+      String unit = after.path("primaryMetric").path("scoreUnit").asText();
+      boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+
+      double changePercent = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100.0;
+      double worsePercent = higherIsBetter ? -changePercent : changePercent;
+      boolean regressed = worsePercent > tolerance;
+      if (regressed) {
+        regressions++;
+      }
+      System.out.printf(
+          "%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+          regressed ? "REGRESSED" : "ok", entry.getKey(), oldScore, newScore, unit, changePercent);
+    }
+
+    if (regressions > 0) {
+      System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, tolerance);
+      System.exit(1);
+    }
+  }
+
+  /** Keys each result by benchmark name, mode and parameters. */
+  private static Map<String, JsonNode> index(JsonNode runs) {
+    Map<String, JsonNode> byKey = new LinkedHashMap<>();
+    for (JsonNode run : runs) {
+      StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+      key.append(" [").append(run.path("mode").asText()).append(']');
+      Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+      while (params.hasNext()) {
+        Map.Entry<String, JsonNode> param = params.next();
+        key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+      }
+      byKey.put(key.toString(), run);
+    }
+    return byKey;
+  }
+}
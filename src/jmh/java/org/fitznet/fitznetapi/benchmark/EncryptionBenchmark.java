@@ -0,0 +1,66 @@
+package org.fitznet.fitznetapi.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import org.fitznet.fitznetapi.service.EncryptionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * /encrypt and /decrypt at a few payload sizes, plus decrypting the pre-envelope ECB format to see
+ * what data that has not been re-encrypted yet costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EncryptionBenchmark {
+
+  @Param({"16", "1024", "65536"})
+  public int payloadSize;
+
+  private EncryptionService encryptionService;
+  private String plaintext;
+  private String ciphertext;
+  private String legacyCiphertext;
+
+  @Setup
+  public void setUp() throws Exception {
+    KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+    keyGenerator.init(256);
+    SecretKey secretKey = keyGenerator.generateKey();
+    String key = Base64.getEncoder().encodeToString(secretKey.getEncoded());
+    encryptionService = new EncryptionService(key, "primary", new SimpleMeterRegistry());
+    plaintext = "x".repeat(payloadSize);
+    ciphertext = encryptionService.encrypt(plaintext);
+    Cipher ecb = Cipher.getInstance("AES");
+    ecb.init(Cipher.ENCRYPT_MODE, secretKey);
+    legacyCiphertext =
+        Base64.getEncoder().encodeToString(ecb.doFinal(plaintext.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Benchmark
+  public String encrypt() throws Exception {
+    return encryptionService.encrypt(plaintext);
+  }
+
+  @Benchmark
+  public String decrypt() throws Exception {
+    return encryptionService.decrypt(ciphertext);
+  }
+
+  @Benchmark
+  public String decryptLegacy() throws Exception {
+    return encryptionService.decrypt(legacyCiphertext);
+  }
+}
@@ -0,0 +1,52 @@
+package org.fitznet.fitznetapi.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.fitznet.fitznetapi.config.JwtProperties;
+import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Token minting and verification as done by /user/login and JwtAuthenticationFilter. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtBenchmark {
+
+  private static final String SECRET =
+      "benchmarkSecretKeyForJwtTokenGenerationOnlyNotForProduction";
+
+  private JwtUtil jwtUtil;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    JwtProperties properties = new JwtProperties();
+    properties.setSecret(SECRET);
+    properties.setExpiration(86_400_000L);
+    jwtUtil = new JwtUtil(properties, new SimpleMeterRegistry());
+    token = jwtUtil.generateToken("benchuser");
+  }
+
+  @Benchmark
+  public String mint() {
+    return jwtUtil.generateToken("benchuser");
+  }
+
+  @Benchmark
+  public Optional<VerifiedToken> verify() {
+    return jwtUtil.verify(token);
+  }
+
+  @Benchmark
+  public Optional<VerifiedToken> verifyMalformed() {
+    return jwtUtil.verify("not.a-valid.token!");
+  }
+}
@@ -0,0 +1,43 @@
+package org.fitznet.fitznetapi.config;
+
+import java.util.Set;
+import java.util.function.Supplier;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Grants {@code /admin/**} and the diagnostic endpoints to the users whose ids are listed in {@code
+ * security.admin-user-ids}, as named by the token's {@code uid} claim. Usernames are chosen by
+ * users and can be renamed or re-registered, so they never grant anything. Tokens issued before
+ * the claim existed are not admin tokens; log in again. Nobody is an admin unless configured.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class AdminAuthorizationManager
+    implements AuthorizationManager<RequestAuthorizationContext> {
+
+  private final Set<String> adminUserIds;
+
+  public AdminAuthorizationManager(@Value("${security.admin-user-ids:}") Set<String> adminUserIds) {
+    this.adminUserIds = Set.copyOf(adminUserIds);
+  }
+
+  @Override
+  public AuthorizationDecision check(
+      Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+    Authentication auth = authentication.get();
+    return new AuthorizationDecision(
+        auth != null
+            && auth.isAuthenticated()
+            && auth.getCredentials() instanceof VerifiedToken token
+            && token.getUserId() != null
+            && adminUserIds.contains(token.getUserId()));
+  }
+}
@@ -0,0 +1,41 @@
+package org.fitznet.fitznetapi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.fitznet.fitznetapi.util.logging.MeteredAsyncAppender;
+import org.fitznet.fitznetapi.util.logging.RateLimitingTurboFilter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Log lines the application chose not to write. All stay at zero unless the {@code prod} logging
+ * setup in logback-spring.xml is active.
+ */
+@Component
+public class AsyncLoggingMetrics implements MeterBinder {
+
+  private static final String LOST_DESCRIPTION =
+      "Log events the async appender did not write: queue_full when there was no room at all,"
+          + " discarded when INFO and below were shed as the queue filled up";
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("logging.async.lost", this, ignored -> MeteredAsyncAppender.dropped())
+        .description(LOST_DESCRIPTION)
+        .tag("reason", "queue_full")
+        .register(registry);
+    FunctionCounter.builder(
+            "logging.async.lost", this, ignored -> MeteredAsyncAppender.discarded())
+        .description(LOST_DESCRIPTION)
+        .tag("reason", "discarded")
+        .register(registry);
+    FunctionCounter.builder(
+            "logging.rate.limited", this, ignored -> RateLimitingTurboFilter.suppressed())
+        .description("Repeated INFO log events suppressed by the per-message rate limit")
+        .register(registry);
+    Gauge.builder("logging.async.queued", MeteredAsyncAppender::queued)
+        .description("Log events waiting to be written by the async appender")
+        .register(registry);
+  }
+}
@@ -0,0 +1,89 @@
+package org.fitznet.fitznetapi.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder whose cost is chosen per deployment. {@link #upgradeEncoding(String)} reports any
+ * hash whose recorded cost is below ours, so logins can migrate stored hashes to the current cost
+ * without a password reset. Hashes above it are left alone: the cost is calibrated per host, and
+ * pods on different hardware would otherwise keep rehashing each other's hashes back and forth,
+ * lowering the cost every time a slower pod won.
+ */
+@Slf4j
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+  private static final int SAMPLES = 3;
+  private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+  @Getter private final int strength;
+
+  public CalibratedBCryptPasswordEncoder(int strength) {
+    super(strength);
+    this.strength = strength;
+  }
+
+  /**
+   * Benchmarks hashing on this host and returns the highest cost whose hash time fits within the
+   * target. Each extra cost doubles the work, so the search stops at the first cost over budget.
+   * Never returns less than {@code minStrength}, even if that cost is already too slow.
+   */
+  public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+    // Warm up so the first measurement isn't paying for class loading and JIT
+    new BCryptPasswordEncoder(minStrength).encode(SAMPLE_PASSWORD);
+
+    long budget = targetLatency.toNanos();
+    int chosen = minStrength;
+    long chosenNanos = measure(minStrength);
+    for (int cost = minStrength + 1; cost <= maxStrength && chosenNanos <= budget; cost++) {
+      long nanos = measure(cost);
+      if (nanos > budget) {
+        break;
+      }
+      chosen = cost;
+      chosenNanos = nanos;
+    }
+    log.info(
+        "Calibrated BCrypt strength={} ({} ms per hash, target {} ms)",
+        chosen,
+        chosenNanos / 1_000_000,
+        targetLatency.toMillis());
+    return chosen;
+  }
+
+  /** Returns the cost recorded in a BCrypt hash such as {@code $2a$10$...}, or -1 if unreadable. */
+  public static int costOf(String encodedPassword) {
+    if (encodedPassword == null
+        || encodedPassword.length() < 7
+        || encodedPassword.charAt(0) != '$'
+        || encodedPassword.charAt(3) != '$'
+        || encodedPassword.charAt(6) != '$') {
+      return -1;
+    }
+    char tens = encodedPassword.charAt(4);
+    char ones = encodedPassword.charAt(5);
+    if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+      return -1;
+    }
+    return (tens - '0') * 10 + (ones - '0');
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    int cost = costOf(encodedPassword);
+    return cost != -1 && cost < strength;
+  }
+
+  private static long measure(int cost) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < SAMPLES; i++) {
+      long start = System.nanoTime();
+      encoder.encode(SAMPLE_PASSWORD);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+}
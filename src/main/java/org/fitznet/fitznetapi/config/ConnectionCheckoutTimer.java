@@ -0,0 +1,54 @@
+package org.fitznet.fitznetapi.config;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Meter.MeterProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code mongodb.driver.pool.checkout}: how long each request waited for a pooled connection,
+ * tagged with the outcome ({@code success}, {@code timeout}, {@code connection_error} or {@code
+ * pool_closed}). Spring Boot's pool gauges show how full the pool is; this shows what that costs.
+ * Waits climbing towards the wait queue timeout are the first sign of pool exhaustion.
+ */
+public class ConnectionCheckoutTimer implements ConnectionPoolListener {
+
+  private final MeterProvider<Timer> checkouts;
+
+  public ConnectionCheckoutTimer(MeterRegistry meterRegistry) {
+    this.checkouts =
+        Timer.builder("mongodb.driver.pool.checkout")
+            .description("Time spent waiting to check a connection out of the pool")
+            .withRegistry(meterRegistry);
+  }
+
+  @Override
+  public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+    record(
+        event.getConnectionId().getServerId(),
+        "success",
+        event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+    record(
+        event.getServerId(),
+        event.getReason().name().toLowerCase(Locale.ROOT),
+        event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  private void record(ServerId serverId, String outcome, long elapsedNanos) {
+    checkouts
+        .withTags(
+            "cluster.id", serverId.getClusterId().getValue(),
+            "server.address", serverId.getAddress().toString(),
+            "outcome", outcome)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+}
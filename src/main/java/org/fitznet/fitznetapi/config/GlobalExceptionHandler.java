@@ -2,20 +2,34 @@ package org.fitznet.fitznetapi.config;
 
 import java.util.HashMap;
 import java.util.Map;
+import org.fitznet.fitznetapi.exception.ApiException;
+import org.fitznet.fitznetapi.exception.ProblemResponses;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+  /** Expected failures: a prebuilt body, no allocation beyond the lookup. */
+  @ExceptionHandler(ApiException.class)
+  public ResponseEntity<byte[]> handleApiException(ApiException ex) {
+    return ProblemResponses.of(ex.getStatusCode(), ex.getReason());
+  }
+
+  /** Raised by Spring itself, e.g. for an unreadable body; answered in the same format. */
   @ExceptionHandler(ResponseStatusException.class)
-  public ResponseEntity<Map<String, Object>> handleResponseStatusException(
-      ResponseStatusException ex) {
+  public ResponseEntity<?> handleResponseStatusException(ResponseStatusException ex) {
+    HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
+    if (status != null) {
+      return ProblemResponses.of(status, ex.getReason());
+    }
     Map<String, Object> errorResponse = new HashMap<>();
     errorResponse.put("success", false);
     errorResponse.put("message", ex.getReason());
@@ -26,10 +40,21 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<Map<String, Object>> handleValidationExceptions(
       MethodArgumentNotValidException ex) {
+    return validationFailed(ex.getBindingResult());
+  }
+
+  /** WebFlux reports the same validation failures as a different exception. */
+  @ExceptionHandler(WebExchangeBindException.class)
+  public ResponseEntity<Map<String, Object>> handleWebExchangeBindException(
+      WebExchangeBindException ex) {
+    return validationFailed(ex.getBindingResult());
+  }
+
+  private static ResponseEntity<Map<String, Object>> validationFailed(BindingResult result) {
     Map<String, Object> errorResponse = new HashMap<>();
     Map<String, String> errors = new HashMap<>();
 
-    ex.getBindingResult()
+    result
         .getAllErrors()
         .forEach(
             (error) -> {
@@ -1,14 +1,22 @@
 package org.fitznet.fitznetapi.config;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
+import org.fitznet.fitznetapi.service.TokenRevocationService;
 import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.fitznet.fitznetapi.util.VerifiedTokenCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,11 +24,26 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 @Component
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private static final WebAuthenticationDetailsSource DETAILS_SOURCE =
+      new WebAuthenticationDetailsSource();
+
   @Autowired private JwtUtil jwtUtil;
+  @Autowired private VerifiedTokenCache verifiedTokenCache;
+  @Autowired private TokenRevocationService tokenRevocationService;
+  @Autowired private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    // Public routes have their own chain without this filter; this guards any other registration
+    return PublicRoutes.matches(request);
+  }
 
   @Override
   protected void doFilterInternal(
@@ -29,31 +52,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     final String authorizationHeader = request.getHeader("Authorization");
 
-    String username = null;
-    String jwt = null;
-
-    // Extract JWT token from Authorization header
-    if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-      jwt = authorizationHeader.substring(7);
-      try {
-        username = jwtUtil.extractUsername(jwt);
-      } catch (Exception e) {
-        log.warn("Error extracting username from JWT: {}", e.getMessage());
-      }
+    // Verify the token once and authenticate from the verified claims
+    if (authorizationHeader != null
+        && authorizationHeader.startsWith(BEARER_PREFIX)
+        && SecurityContextHolder.getContext().getAuthentication() == null) {
+      String jwt = authorizationHeader.substring(BEARER_PREFIX.length());
+      // Its own span, so the token check is not lost in the time spent in the rest of the chain
+      Observation.createNotStarted("jwt.authentication", observationRegistry)
+          .observe(
+              () ->
+                  resolve(jwt)
+                      .filter(verified -> !tokenRevocationService.isRevoked(verified))
+                      .ifPresent(verified -> authenticate(request, verified)));
     }
 
-    // Validate token and set authentication
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      if (jwtUtil.validateToken(jwt)) {
-        UsernamePasswordAuthenticationToken authenticationToken =
-            new UsernamePasswordAuthenticationToken(username, null, null);
-        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-        log.debug("JWT authentication successful for user: {}", username);
-      }
+    filterChain.doFilter(request, response);
+  }
+
+  private Optional<VerifiedToken> resolve(String jwt) {
+    if (!JwtUtil.isWellFormed(jwt)) {
+      return Optional.empty();
+    }
+    Optional<VerifiedToken> cached = verifiedTokenCache.get(jwt);
+    if (cached.isPresent()) {
+      return cached;
     }
+    Optional<VerifiedToken> verified = jwtUtil.verify(jwt);
+    verified.ifPresent(token -> verifiedTokenCache.put(jwt, token));
+    return verified;
+  }
 
-    filterChain.doFilter(request, response);
+  private void authenticate(HttpServletRequest request, VerifiedToken verified) {
+    // The verified token rides along as the credentials so /user/logout can revoke it
+    UsernamePasswordAuthenticationToken authenticationToken =
+        new UsernamePasswordAuthenticationToken(verified.getSubject(), verified, null);
+    authenticationToken.setDetails(DETAILS_SOURCE.buildDetails(request));
+    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    log.debug("JWT authentication successful for user: {}", verified.getSubject());
   }
 }
-
@@ -0,0 +1,97 @@
+package org.fitznet.fitznetapi.config;
+
+import java.util.Optional;
+import org.fitznet.fitznetapi.service.TokenRevocationService;
+import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.fitznet.fitznetapi.util.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The reactive counterpart of {@link JwtAuthenticationFilter}: same verification, same cache, same
+ * revocation check, but it runs on the event loop. Only the rare revocation lookup that has to go
+ * to Mongo is moved to a thread that may block.
+ *
+ * <p>Not a bean: WebFlux runs every {@link WebFilter} bean for every request, and this should only
+ * run inside the authenticated chain. {@link ReactiveSecurityConfig} creates it.
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final JwtUtil jwtUtil;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final TokenRevocationService tokenRevocationService;
+
+  public JwtAuthenticationWebFilter(
+      JwtUtil jwtUtil,
+      VerifiedTokenCache verifiedTokenCache,
+      TokenRevocationService tokenRevocationService) {
+    this.jwtUtil = jwtUtil;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.tokenRevocationService = tokenRevocationService;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String authorizationHeader =
+        exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+    if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+      return chain.filter(exchange);
+    }
+    Optional<VerifiedToken> verified =
+        resolve(authorizationHeader.substring(BEARER_PREFIX.length()));
+    if (verified.isEmpty()) {
+      return chain.filter(exchange);
+    }
+    VerifiedToken token = verified.get();
+    return isRevoked(token)
+        .flatMap(
+            revoked ->
+                revoked
+                    ? chain.filter(exchange)
+                    : chain
+                        .filter(exchange)
+                        .contextWrite(
+                            ReactiveSecurityContextHolder.withAuthentication(
+                                authenticate(token))));
+  }
+
+  private Mono<Boolean> isRevoked(VerifiedToken token) {
+    if (!tokenRevocationService.mightBeRevoked(token)) {
+      return Mono.just(false);
+    }
+    return Mono.fromCallable(() -> tokenRevocationService.isRevoked(token))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private Optional<VerifiedToken> resolve(String jwt) {
+    if (!JwtUtil.isWellFormed(jwt)) {
+      return Optional.empty();
+    }
+    Optional<VerifiedToken> cached = verifiedTokenCache.get(jwt);
+    if (cached.isPresent()) {
+      return cached;
+    }
+    Optional<VerifiedToken> verified = jwtUtil.verify(jwt);
+    verified.ifPresent(token -> verifiedTokenCache.put(jwt, token));
+    return verified;
+  }
+
+  private static UsernamePasswordAuthenticationToken authenticate(VerifiedToken verified) {
+    log.debug("JWT authentication successful for user: {}", verified.getSubject());
+    // The verified token rides along as the credentials so /user/logout can revoke it
+    return new UsernamePasswordAuthenticationToken(verified.getSubject(), verified, null);
+  }
+}
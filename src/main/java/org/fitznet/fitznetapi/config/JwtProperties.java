@@ -0,0 +1,31 @@
+package org.fitznet.fitznetapi.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * JWT signing configuration. To rotate without forcing everyone to log in again, move the current
+ * {@code secret} into {@code verification-keys} under its key id, then set a new {@code secret}
+ * and {@code key-id}. Drop the old entry once {@code expiration} has passed.
+ */
+@Data
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+  /** Secret of the active signing key. */
+  private String secret;
+
+  /** Key id written to the {@code kid} header of every token signed with {@link #secret}. */
+  private String keyId = "primary";
+
+  /** Token lifetime in milliseconds. */
+  private long expiration;
+
+  /** Retired secrets by key id. Tokens signed with them still verify but none are issued. */
+  private Map<String, String> verificationKeys = new HashMap<>();
+
+  /** Key id assumed for tokens without a {@code kid} header; defaults to {@link #keyId}. */
+  private String legacyKeyId;
+}
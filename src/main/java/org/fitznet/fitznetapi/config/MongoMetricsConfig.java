@@ -0,0 +1,70 @@
+package org.fitznet.fitznetapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import java.util.Arrays;
+import org.fitznet.fitznetapi.repository.RepositoryOperation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Adds to the Mongo metrics Spring Boot already records ({@code mongodb.driver.commands} and the
+ * {@code mongodb.driver.pool.*} gauges): a checkout wait timer, and an {@code operation} tag on
+ * command timers naming the repository method behind each command. Slow commands are also
+ * collected by {@link SlowQueryEndpoint}.
+ */
+@Configuration
+public class MongoMetricsConfig {
+
+  /** Replaces Spring Boot's default, which it keeps delegating to. */
+  @Bean
+  public MongoCommandTagsProvider mongoCommandTagsProvider() {
+    return new RepositoryOperationTagsProvider();
+  }
+
+  @Bean
+  public MongoClientSettingsBuilderCustomizer connectionCheckoutTimer(MeterRegistry meterRegistry) {
+    ConnectionCheckoutTimer timer = new ConnectionCheckoutTimer(meterRegistry);
+    return settings ->
+        settings.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(timer));
+  }
+
+  @Bean
+  public MongoClientSettingsBuilderCustomizer slowQueryListener(
+      SlowQueryEndpoint slowQueryEndpoint) {
+    return settings -> settings.addCommandListener(slowQueryEndpoint);
+  }
+
+  /**
+   * Spring Data repositories are AOP proxies, so the operation is recorded by adding advice to
+   * them rather than by wrapping them in another proxy.
+   */
+  @Bean
+  public static BeanPostProcessor repositoryOperationRecorder() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository<?, ?>
+            && bean instanceof Advised advised
+            && !advised.isFrozen()) {
+          advised.addAdvice(0, RepositoryOperation.interceptor(repositoryName(advised)));
+        }
+        return bean;
+      }
+    };
+  }
+
+  /** The application's repository interface, e.g. {@code UserRepository}. */
+  private static String repositoryName(Advised repository) {
+    return Arrays.stream(repository.getProxiedInterfaces())
+        .filter(Repository.class::isAssignableFrom)
+        .filter(type -> !type.getName().startsWith("org.springframework."))
+        .findFirst()
+        .map(Class::getSimpleName)
+        .orElse("Repository");
+  }
+}
@@ -0,0 +1,26 @@
+package org.fitznet.fitznetapi.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+/**
+ * A span for every Mongo command, as a child of whatever span issued it. Spring Boot doesn't wire
+ * Spring Data's command listener on its own. The context provider is what carries the parent
+ * span to the listener, which the driver may call on another thread.
+ */
+@Configuration
+public class MongoTracingConfig {
+
+  @Bean
+  public MongoClientSettingsBuilderCustomizer mongoObservation(
+      ObservationRegistry observationRegistry) {
+    return settings ->
+        settings
+            .contextProvider(ContextProviderFactory.create(observationRegistry))
+            .addCommandListener(new MongoObservationCommandListener(observationRegistry));
+  }
+}
@@ -0,0 +1,29 @@
+package org.fitznet.fitznetapi.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/** The password encoder, shared by the servlet and reactive security setups. */
+@Configuration
+public class PasswordEncoderConfig {
+
+  /**
+   * Uses {@code password.bcrypt.strength} when set; otherwise benchmarks this host at startup and
+   * picks the highest cost that hashes within {@code password.bcrypt.target-latency}.
+   */
+  @Bean
+  public PasswordEncoder passwordEncoder(
+      @Value("${password.bcrypt.strength:0}") int strength,
+      @Value("${password.bcrypt.target-latency:250ms}") Duration targetLatency,
+      @Value("${password.bcrypt.min-strength:10}") int minStrength,
+      @Value("${password.bcrypt.max-strength:16}") int maxStrength) {
+    if (strength > 0) {
+      return new CalibratedBCryptPasswordEncoder(strength);
+    }
+    return new CalibratedBCryptPasswordEncoder(
+        CalibratedBCryptPasswordEncoder.calibrate(targetLatency, minStrength, maxStrength));
+  }
+}
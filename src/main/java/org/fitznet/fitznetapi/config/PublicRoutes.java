@@ -0,0 +1,67 @@
+package org.fitznet.fitznetapi.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Set;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * The routes anyone may call, shared by {@link SecurityConfig}, {@link JwtAuthenticationFilter}
+ * and {@link ReactiveSecurityConfig} so they can never disagree. Lookups are a hash probe plus one
+ * prefix check, cheap enough for health probes that arrive every few seconds.
+ */
+public final class PublicRoutes {
+
+  private static final Set<String> EXACT_PATHS =
+      Set.of(
+          "/user/create",
+          "/user/login",
+          "/encrypt",
+          "/decrypt",
+          "/info",
+          "/error",
+          "/actuator/health",
+          "/actuator/info");
+
+  // Liveness and readiness groups live under /actuator/health/<group>
+  private static final String HEALTH_GROUP_PREFIX = "/actuator/health/";
+
+  public static final RequestMatcher MATCHER = PublicRoutes::matches;
+
+  public static final ServerWebExchangeMatcher EXCHANGE_MATCHER =
+      exchange ->
+          matches(
+                  exchange.getRequest().getMethod().name(),
+                  exchange.getRequest().getPath().pathWithinApplication().value())
+              ? MatchResult.match()
+              : MatchResult.notMatch();
+
+  private PublicRoutes() {}
+
+  public static boolean matches(HttpServletRequest request) {
+    return matches(request.getMethod(), pathWithinApplication(request));
+  }
+
+  static boolean matches(String method, String path) {
+    // CORS preflights never carry credentials
+    if (HttpMethod.OPTIONS.matches(method)) {
+      return true;
+    }
+    return isPublicPath(path);
+  }
+
+  static boolean isPublicPath(String path) {
+    return EXACT_PATHS.contains(path) || path.startsWith(HEALTH_GROUP_PREFIX);
+  }
+
+  private static String pathWithinApplication(HttpServletRequest request) {
+    String uri = request.getRequestURI();
+    String contextPath = request.getContextPath();
+    if (contextPath != null && !contextPath.isEmpty() && uri.startsWith(contextPath)) {
+      return uri.substring(contextPath.length());
+    }
+    return uri;
+  }
+}
@@ -0,0 +1,207 @@
+package org.fitznet.fitznetapi.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+/**
+ * Turns a Mongo command into its shape: the same command with every value a client supplied
+ * replaced by a placeholder of the same type, so it can be shown, grouped and explained without
+ * leaking usernames, emails or password hashes. Placeholders keep their BSON type because the
+ * planner, and operators like {@code $in}, care about types but not values.
+ */
+final class QueryShapes {
+
+  /** Commands the server can explain. Inserts and cursor bookkeeping have no plan to show. */
+  static final Set<String> EXPLAINABLE =
+      Set.of("find", "count", "distinct", "aggregate", "delete", "update", "findAndModify");
+
+  // Fields the driver adds to every command; they are not part of the query
+  private static final Set<String> DRIVER_FIELDS =
+      Set.of(
+          "$db",
+          "lsid",
+          "$clusterTime",
+          "txnNumber",
+          "autocommit",
+          "startTransaction",
+          "$readPreference",
+          "readConcern",
+          "writeConcern",
+          "apiVersion",
+          "apiStrict",
+          "apiDeprecationErrors",
+          "maxTimeMS",
+          "comment");
+
+  // Fields holding client values: filters, update documents and pipelines. The command's own
+  // field, e.g. the "update" of an update command, is the collection name and is never one.
+  private static final Set<String> VALUE_FIELDS =
+      Set.of("filter", "query", "q", "u", "update", "pipeline");
+
+  // Pipeline stages made of field names and directions only, which must stay as they are
+  private static final Set<String> STRUCTURAL_STAGES =
+      Set.of("$sort", "$project", "$limit", "$skip", "$count", "$unset");
+
+  private QueryShapes() {}
+
+  /**
+   * The redacted command, ready to wrap in {@code explain}, or null if {@code commandName} can't
+   * be explained. Batched deletes and updates keep only their first statement.
+   */
+  static BsonDocument shapeOf(String commandName, BsonDocument command) {
+    if (!EXPLAINABLE.contains(commandName) || !command.isString(commandName)) {
+      return null;
+    }
+    BsonDocument shape = new BsonDocument();
+    for (Map.Entry<String, BsonValue> field : command.entrySet()) {
+      String name = field.getKey();
+      BsonValue value = field.getValue();
+      if (DRIVER_FIELDS.contains(name)) {
+        continue;
+      }
+      if (name.equals(commandName)) {
+        shape.put(name, value);
+      } else if (name.equals("deletes") || name.equals("updates")) {
+        BsonArray statements = value.asArray();
+        BsonArray first = new BsonArray();
+        if (!statements.isEmpty()) {
+          first.add(redactStatement(statements.get(0).asDocument()));
+        }
+        shape.put(name, first);
+      } else if (name.equals("pipeline")) {
+        shape.put(name, redactPipeline(value.asArray()));
+      } else if (VALUE_FIELDS.contains(name)) {
+        shape.put(name, redact(value));
+      } else {
+        shape.put(name, value);
+      }
+    }
+    return shape;
+  }
+
+  private static BsonDocument redactStatement(BsonDocument statement) {
+    BsonDocument redacted = new BsonDocument();
+    for (Map.Entry<String, BsonValue> field : statement.entrySet()) {
+      redacted.put(
+          field.getKey(),
+          VALUE_FIELDS.contains(field.getKey()) ? redact(field.getValue()) : field.getValue());
+    }
+    return redacted;
+  }
+
+  private static BsonArray redactPipeline(BsonArray pipeline) {
+    BsonArray redacted = new BsonArray();
+    for (BsonValue stage : pipeline) {
+      String operator = stage.asDocument().getFirstKey();
+      redacted.add(STRUCTURAL_STAGES.contains(operator) ? stage : redact(stage));
+    }
+    return redacted;
+  }
+
+  private static BsonValue redact(BsonValue value) {
+    switch (value.getBsonType()) {
+      case DOCUMENT:
+        BsonDocument document = new BsonDocument();
+        for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+          document.put(field.getKey(), redact(field.getValue()));
+        }
+        return document;
+      case ARRAY:
+        return redactArray(value.asArray());
+      case STRING:
+        return new BsonString("?");
+      case INT32:
+        return new BsonInt32(0);
+      case INT64:
+        return new BsonInt64(0);
+      case DOUBLE:
+        return new BsonDouble(0);
+      case DECIMAL128:
+        return new BsonDecimal128(Decimal128.POSITIVE_ZERO);
+      case OBJECT_ID:
+        return new BsonObjectId(new ObjectId(new byte[12]));
+      case DATE_TIME:
+        return new BsonDateTime(0);
+      case REGULAR_EXPRESSION:
+        return new BsonRegularExpression(".");
+      default:
+        // Booleans, nulls and the rest carry no user data and often decide the plan
+        return value;
+    }
+  }
+
+  /**
+   * {@code $or} branches each keep their shape; a list of values collapses to one placeholder so
+   * that {@code $in} lists of different lengths are the same shape.
+   */
+  private static BsonArray redactArray(BsonArray array) {
+    BsonArray redacted = new BsonArray();
+    if (array.isEmpty()) {
+      return redacted;
+    }
+    if (array.get(0).isDocument()) {
+      for (BsonValue element : array) {
+        redacted.add(redact(element));
+      }
+    } else {
+      redacted.add(redact(array.get(0)));
+    }
+    return redacted;
+  }
+
+  /**
+   * The winning plan's stages, outermost first, e.g. {@code [FETCH, IXSCAN username_unique]}.
+   * Handles both the classic layout and the slot-based engine's {@code queryPlan} wrapper.
+   */
+  static List<String> planStages(Map<?, ?> explain) {
+    List<String> stages = new ArrayList<>();
+    if (explain.get("queryPlanner") instanceof Map<?, ?> planner) {
+      collectStages(planner.get("winningPlan"), stages);
+    } else if (explain.get("stages") instanceof List<?> pipeline && !pipeline.isEmpty()) {
+      // Aggregations put the query planner inside their first stage
+      if (pipeline.get(0) instanceof Map<?, ?> first
+          && first.get("$cursor") instanceof Map<?, ?> cursor) {
+        return planStages(cursor);
+      }
+    }
+    return stages;
+  }
+
+  private static void collectStages(Object node, List<String> stages) {
+    if (!(node instanceof Map<?, ?> plan)) {
+      return;
+    }
+    if (plan.get("queryPlan") instanceof Map<?, ?> queryPlan) {
+      collectStages(queryPlan, stages);
+      return;
+    }
+    if (plan.get("stage") instanceof String stage) {
+      stages.add(plan.get("indexName") instanceof String index ? stage + " " + index : stage);
+    }
+    collectStages(plan.get("inputStage"), stages);
+    if (plan.get("inputStages") instanceof List<?> inputs) {
+      for (Object input : inputs) {
+        collectStages(input, stages);
+      }
+    }
+  }
+
+  static boolean isCollectionScan(List<String> stages) {
+    return stages.contains("COLLSCAN");
+  }
+}
@@ -0,0 +1,117 @@
+package org.fitznet.fitznetapi.config;
+
+import org.fitznet.fitznetapi.service.TokenRevocationService;
+import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedTokenCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
+
+/**
+ * Security for the {@code reactive} profile, mirroring {@link SecurityConfig}: public routes get a
+ * chain that authenticates nothing, everything else needs a valid bearer token.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+  /**
+   * Tomcat is on the classpath for the servlet stack and would otherwise be picked here too; the
+   * point of this mode is Netty's small, fixed set of event loop threads.
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  @Bean
+  @Order(1)
+  public SecurityWebFilterChain publicSecurityWebFilterChain(ServerHttpSecurity http) {
+    return http.securityMatcher(PublicRoutes.EXCHANGE_MATCHER)
+        .csrf(ServerHttpSecurity.CsrfSpec::disable)
+        .cors(cors -> {})
+        .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+        .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+        .anonymous(ServerHttpSecurity.AnonymousSpec::disable)
+        .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+        .requestCache(cache -> cache.requestCache(NoOpServerRequestCache.getInstance()))
+        .authorizeExchange(exchanges -> exchanges.anyExchange().permitAll())
+        .build();
+  }
+
+  @Bean
+  @Order(2)
+  public SecurityWebFilterChain securityWebFilterChain(
+      ServerHttpSecurity http,
+      JwtUtil jwtUtil,
+      VerifiedTokenCache verifiedTokenCache,
+      TokenRevocationService tokenRevocationService,
+      ScrapeTokenAuthorizationManager scrapeTokenAuthorizationManager) {
+    JwtAuthenticationWebFilter jwtAuthenticationWebFilter =
+        new JwtAuthenticationWebFilter(jwtUtil, verifiedTokenCache, tokenRevocationService);
+    return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+        .cors(cors -> {})
+        .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+        .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+        .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+        .requestCache(cache -> cache.requestCache(NoOpServerRequestCache.getInstance()))
+        .exceptionHandling(
+            exceptions ->
+                exceptions.authenticationEntryPoint(
+                    (exchange, authException) -> unauthorized(exchange.getResponse())))
+        .authorizeExchange(
+            exchanges ->
+                // There is no reactive admin check, so admin-only endpoints stay closed here;
+                // Prometheus is let in by its scrape token alone
+                exchanges
+                    .pathMatchers("/actuator/prometheus")
+                    .access(
+                        (authentication, context) ->
+                            Mono.just(
+                                new AuthorizationDecision(
+                                    scrapeTokenAuthorizationManager.matches(
+                                        context
+                                            .getExchange()
+                                            .getRequest()
+                                            .getHeaders()
+                                            .getFirst(HttpHeaders.AUTHORIZATION)))))
+                    .pathMatchers("/actuator/**")
+                    .denyAll()
+                    .anyExchange()
+                    .authenticated())
+        .addFilterAt(jwtAuthenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+        .build();
+  }
+
+  @Bean
+  public CorsConfigurationSource corsConfigurationSource() {
+    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+    source.registerCorsConfiguration("/**", SecurityConfig.corsConfiguration());
+    return source;
+  }
+
+  private static Mono<Void> unauthorized(ServerHttpResponse response) {
+    response.setStatusCode(HttpStatus.UNAUTHORIZED);
+    response.getHeaders().setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+    return response.writeWith(
+        Mono.just(response.bufferFactory().wrap(SecurityConfig.UNAUTHORIZED_BODY)));
+  }
+}
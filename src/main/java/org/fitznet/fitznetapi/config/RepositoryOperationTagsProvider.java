@@ -0,0 +1,40 @@
+package org.fitznet.fitznetapi.config;
+
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.fitznet.fitznetapi.repository.RepositoryOperation;
+
+/**
+ * The default command tags (command, collection, cluster and server) plus {@code operation}, the
+ * repository method that issued the command, or {@code none}. The operation is captured when the
+ * command starts, since the driver may report its outcome from another thread.
+ */
+public class RepositoryOperationTagsProvider implements MongoCommandTagsProvider {
+
+  static final String NO_OPERATION = "none";
+
+  private final MongoCommandTagsProvider delegate = new DefaultMongoCommandTagsProvider();
+  private final Map<Integer, String> operationsByRequestId = new ConcurrentHashMap<>();
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    delegate.commandStarted(event);
+    String operation = RepositoryOperation.current();
+    if (operation != null) {
+      operationsByRequestId.put(event.getRequestId(), operation);
+    }
+  }
+
+  @Override
+  public Iterable<Tag> commandTags(CommandEvent event) {
+    String operation = operationsByRequestId.remove(event.getRequestId());
+    return Tags.of(delegate.commandTags(event))
+        .and("operation", operation == null ? NO_OPERATION : operation);
+  }
+}
@@ -0,0 +1,51 @@
+package org.fitznet.fitznetapi.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Grants {@code /actuator/prometheus} to a scraper that sends {@code Authorization: Bearer <token>}
+ * with the static token in {@code security.prometheus-scrape-token}. A scraper can't log in and
+ * refresh a user JWT every day, and this token grants nothing else. Unset means no scraper is let
+ * in, which leaves the endpoint to admins.
+ */
+@Component
+public class ScrapeTokenAuthorizationManager
+    implements AuthorizationManager<RequestAuthorizationContext> {
+
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final byte[] expected;
+
+  public ScrapeTokenAuthorizationManager(
+      @Value("${security.prometheus-scrape-token:}") String scrapeToken) {
+    this.expected = scrapeToken.isBlank() ? null : bearer(scrapeToken);
+  }
+
+  @Override
+  public AuthorizationDecision check(
+      Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+    return new AuthorizationDecision(
+        matches(context.getRequest().getHeader(HttpHeaders.AUTHORIZATION)));
+  }
+
+  /** Also used by {@link ReactiveSecurityConfig}, which has no request context of this type. */
+  public boolean matches(String authorizationHeader) {
+    // Constant time, so the token can't be guessed a byte at a time from response timings
+    return expected != null
+        && authorizationHeader != null
+        && MessageDigest.isEqual(expected, authorizationHeader.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] bearer(String token) {
+    return (BEARER_PREFIX + token).getBytes(StandardCharsets.UTF_8);
+  }
+}
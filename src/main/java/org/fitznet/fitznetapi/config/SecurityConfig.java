@@ -1,16 +1,22 @@
 package org.fitznet.fitznetapi.config;
 
 import java.util.List;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
+import org.fitznet.fitznetapi.exception.ProblemResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -18,52 +24,99 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 @Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class SecurityConfig {
 
+  /** Encoded once: every request with a missing or bad token gets these same bytes. */
+  static final byte[] UNAUTHORIZED_BODY =
+      ProblemResponses.encode(HttpStatus.UNAUTHORIZED, "Unauthorized");
+
   @Autowired private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+  @Autowired private AdminAuthorizationManager adminAuthorizationManager;
+
+  @Autowired private ScrapeTokenAuthorizationManager scrapeTokenAuthorizationManager;
+
+  /**
+   * Public and probe routes get a chain with no JWT filter, no anonymous authentication and no
+   * authorization filter (everything in it is allowed), so they never pay for header parsing or
+   * token verification. Only CORS and the security headers still apply.
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  @Order(1)
+  public SecurityFilterChain publicSecurityFilterChain(HttpSecurity http) throws Exception {
+    http.securityMatcher(PublicRoutes.MATCHER)
+        .csrf(AbstractHttpConfigurer::disable)
+        .cors(cors -> {})
+        .sessionManagement(
+            session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .requestCache(AbstractHttpConfigurer::disable)
+        .anonymous(AbstractHttpConfigurer::disable);
+    return http.build();
   }
 
   @Bean
+  @Order(2)
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http.csrf(AbstractHttpConfigurer::disable)
         .cors(cors -> {})
         .sessionManagement(
             session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .requestCache(AbstractHttpConfigurer::disable)
         .exceptionHandling(
             exceptions ->
                 exceptions.authenticationEntryPoint(
                     (request, response, authException) -> {
                       response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                      response.setContentType("application/json");
-                      response
-                          .getWriter()
-                          .write(
-                              "{\"success\":false,\"message\":\"Unauthorized\",\"status\":401}");
+                      response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+                      response.setContentLength(UNAUTHORIZED_BODY.length);
+                      response.getOutputStream().write(UNAUTHORIZED_BODY);
                     }))
         .authorizeHttpRequests(
             auth ->
-                auth.requestMatchers(HttpMethod.OPTIONS, "/**")
-                    .permitAll()
-                    .requestMatchers("/user/create", "/user/login")
-                    .permitAll()
-                    .requestMatchers("/encrypt", "/decrypt")
-                    .permitAll()
-                    .requestMatchers("/actuator/health", "/actuator/info", "/info", "/error")
+                // Async dispatches resume a request that was already authorized, and the
+                // stateless context is not carried over to them
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC)
                     .permitAll()
-                    .requestMatchers("/user/read", "/user/readAll", "/user/update", "/user/delete")
-                    .authenticated()
+                    // Scrapers send a static token instead of a user's JWT
+                    .requestMatchers("/actuator/prometheus")
+                    .access(
+                        AuthorizationManagers.anyOf(
+                            scrapeTokenAuthorizationManager, adminAuthorizationManager))
+                    .requestMatchers(
+                        "/admin/**",
+                        "/actuator/metrics/**",
+                        "/actuator/slowqueries",
+                        "/actuator/pinning")
+                    .access(adminAuthorizationManager)
                     .anyRequest()
                     .authenticated())
         .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
     return http.build();
   }
 
+  /**
+   * The filter is a bean so it can be injected, which would also make Spring Boot register it for
+   * every request at the servlet level. It should only run inside the authenticated chain.
+   */
+  @Bean
+  public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+      JwtAuthenticationFilter filter) {
+    FilterRegistrationBean<JwtAuthenticationFilter> registration =
+        new FilterRegistrationBean<>(filter);
+    registration.setEnabled(false);
+    return registration;
+  }
+
   @Bean
   public CorsConfigurationSource corsConfigurationSource() {
+    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+    source.registerCorsConfiguration("/**", corsConfiguration());
+    return source;
+  }
+
+  /** Also used by {@link ReactiveSecurityConfig}, so both stacks allow the same origins. */
+  static CorsConfiguration corsConfiguration() {
     CorsConfiguration configuration = new CorsConfiguration();
     configuration.setAllowedOrigins(
         List.of(
@@ -74,9 +127,6 @@ public class SecurityConfig {
     configuration.setAllowedHeaders(List.of("*"));
     configuration.setExposedHeaders(List.of("Authorization", "Content-Type"));
     configuration.setAllowCredentials(true);
-
-    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-    source.registerCorsConfiguration("/**", configuration);
-    return source;
+    return configuration;
   }
 }
@@ -0,0 +1,245 @@
+package org.fitznet.fitznetapi.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.fitznet.fitznetapi.dto.responses.SlowQueryDto;
+import org.fitznet.fitznetapi.dto.responses.SlowQueryReportDto;
+import org.fitznet.fitznetapi.repository.RepositoryOperation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/slowqueries}: Mongo commands that took longer than {@code
+ * diagnostics.slow-query.threshold}, grouped by shape (the command with its values redacted, see
+ * {@link QueryShapes}) and tagged with the repository method that issued them. The first time a
+ * shape is slow its plan is explained in the background, so an unindexed query shows up as a
+ * {@code COLLSCAN} while the collection is still small enough not to hurt.
+ *
+ * <p>Registered with the driver by {@link MongoMetricsConfig}. A DELETE clears it.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint implements CommandListener {
+
+  // Distinct shapes kept; anything beyond is only counted, so memory stays bounded
+  static final int MAX_SHAPES = 200;
+
+  private final Duration threshold;
+  private final long thresholdNanos;
+  private final ObjectProvider<MongoTemplate> mongoTemplate;
+  private final Map<Integer, Started> started = new ConcurrentHashMap<>();
+  private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+  private final LongAdder untracked = new LongAdder();
+  private final ThreadPoolExecutor explainer;
+
+  /** The template is looked up lazily: the Mongo client it needs is built with this listener. */
+  @Autowired
+  public SlowQueryEndpoint(
+      @Value("${diagnostics.slow-query.threshold:100ms}") Duration threshold,
+      ObjectProvider<MongoTemplate> mongoTemplate) {
+    this.threshold = threshold;
+    this.thresholdNanos = threshold.toNanos();
+    this.mongoTemplate = mongoTemplate;
+    // One thread and a short queue: explains are diagnostics and are dropped when it falls behind
+    this.explainer =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16),
+            runnable -> {
+              Thread thread = new Thread(runnable, "slow-query-explain");
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  @PreDestroy
+  void shutdown() {
+    explainer.shutdownNow();
+  }
+
+  /**
+   * The command document is only readable during this call, so the shape is taken now, on the
+   * calling thread, for every explainable command; it is small next to the round trip.
+   */
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    BsonDocument shape = QueryShapes.shapeOf(event.getCommandName(), event.getCommand());
+    if (shape != null) {
+      String operation = RepositoryOperation.current();
+      started.put(
+          event.getRequestId(),
+          new Started(
+              event.getDatabaseName(),
+              event.getCommandName(),
+              shape,
+              operation == null ? RepositoryOperationTagsProvider.NO_OPERATION : operation));
+    }
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    finished(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    finished(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  private void finished(int requestId, long elapsedNanos) {
+    Started command = started.remove(requestId);
+    if (command != null && elapsedNanos >= thresholdNanos) {
+      record(command, elapsedNanos);
+    }
+  }
+
+  void record(Started command, long elapsedNanos) {
+    String collection = command.shape().getString(command.commandName()).getValue();
+    String json = command.shape().toJson();
+    String key = command.databaseName() + "." + collection + " " + json;
+    Shape shape = shapes.get(key);
+    if (shape == null) {
+      if (shapes.size() >= MAX_SHAPES) {
+        untracked.increment();
+        return;
+      }
+      Shape created = new Shape(command.commandName(), collection, json);
+      shape = shapes.putIfAbsent(key, created);
+      if (shape == null) {
+        shape = created;
+        log.warn(
+            "Slow Mongo {} on {} took {} ms, from {}: {}",
+            command.commandName(),
+            collection,
+            TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+            command.operation(),
+            json);
+        explainer.execute(() -> explain(command, created));
+      }
+    }
+    shape.record(command.operation(), elapsedNanos);
+  }
+
+  private void explain(Started command, Shape shape) {
+    BsonDocument explain =
+        new BsonDocument("explain", command.shape())
+            .append("verbosity", new BsonString("queryPlanner"));
+    try {
+      Document result =
+          mongoTemplate
+              .getObject()
+              .getMongoDatabaseFactory()
+              .getMongoDatabase(command.databaseName())
+              .runCommand(explain);
+      List<String> plan = QueryShapes.planStages(result);
+      shape.explained(plan);
+      if (QueryShapes.isCollectionScan(plan)) {
+        log.warn(
+            "Slow Mongo {} on {} scans the whole collection, from {}: {}",
+            shape.command,
+            shape.collection,
+            command.operation(),
+            shape.json);
+      }
+    } catch (RuntimeException e) {
+      log.debug("Could not explain {} on {}: {}", shape.command, shape.collection, e.getMessage());
+    }
+  }
+
+  @ReadOperation
+  public SlowQueryReportDto report() {
+    List<SlowQueryDto> reports = new ArrayList<>(shapes.size());
+    long events = untracked.sum();
+    for (Shape shape : shapes.values()) {
+      SlowQueryDto report = shape.report();
+      events += report.getCount();
+      reports.add(report);
+    }
+    reports.sort(Comparator.comparingDouble(SlowQueryDto::getTotalMillis).reversed());
+    return new SlowQueryReportDto(threshold.toMillis(), events, untracked.sum(), reports);
+  }
+
+  @DeleteOperation
+  public void reset() {
+    shapes.clear();
+    untracked.reset();
+  }
+
+  record Started(String databaseName, String commandName, BsonDocument shape, String operation) {}
+
+  private static final class Shape {
+    private final String command;
+    private final String collection;
+    private final String json;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private volatile String operation;
+    private volatile Instant lastSeen;
+    private volatile List<String> plan = List.of();
+    private volatile Boolean collectionScan;
+
+    Shape(String command, String collection, String json) {
+      this.command = command;
+      this.collection = collection;
+      this.json = json;
+    }
+
+    void record(String operation, long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+      this.operation = operation;
+      lastSeen = Instant.now();
+    }
+
+    void explained(List<String> plan) {
+      this.plan = List.copyOf(plan);
+      this.collectionScan = QueryShapes.isCollectionScan(plan);
+    }
+
+    SlowQueryDto report() {
+      return new SlowQueryDto(
+          command,
+          collection,
+          operation,
+          json,
+          count.sum(),
+          totalNanos.sum() / 1e6,
+          maxNanos.get() / 1e6,
+          String.valueOf(lastSeen),
+          plan,
+          collectionScan);
+    }
+  }
+}
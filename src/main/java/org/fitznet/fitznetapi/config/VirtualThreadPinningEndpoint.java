@@ -0,0 +1,171 @@
+package org.fitznet.fitznetapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.dto.responses.PinningReportDto;
+import org.fitznet.fitznetapi.dto.responses.PinningSiteDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/pinning}: where virtual threads got pinned to their carrier. A JFR stream
+ * listens for {@code jdk.VirtualThreadPinned}, which the JDK emits when a virtual thread blocks
+ * inside a {@code synchronized} block or a native frame for longer than the threshold. Events are
+ * grouped by the top of their stack, so each entry is one code path to fix or to accept.
+ *
+ * <p>Only exists when {@code spring.threads.virtual.enabled} is set. A DELETE clears the counts,
+ * e.g. before a load test.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "pinning")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningEndpoint {
+
+  static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  // Enough to see past the JDK's own frames to the caller that holds the monitor
+  static final int MAX_FRAMES = 12;
+
+  // Distinct stacks kept; anything beyond is only counted, so memory stays bounded
+  static final int MAX_SITES = 200;
+
+  private final Duration threshold;
+  private final Timer pinnedTimer;
+  private final Map<String, Site> sites = new ConcurrentHashMap<>();
+  private final LongAdder untracked = new LongAdder();
+
+  private RecordingStream stream;
+
+  @Autowired
+  public VirtualThreadPinningEndpoint(
+      @Value("${diagnostics.pinning.threshold:20ms}") Duration threshold,
+      MeterRegistry meterRegistry) {
+    this.threshold = threshold;
+    this.pinnedTimer =
+        Timer.builder("jvm.threads.virtual.pinned")
+            .description("Time virtual threads spent blocked while pinned to their carrier")
+            .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+    log.info("Recording virtual thread pinning longer than {}", threshold);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  @ReadOperation
+  public PinningReportDto report() {
+    List<PinningSiteDto> reports = new ArrayList<>(sites.size());
+    long events = untracked.sum();
+    for (Site site : sites.values()) {
+      PinningSiteDto report = site.report();
+      events += report.getCount();
+      reports.add(report);
+    }
+    reports.sort(Comparator.comparingDouble(PinningSiteDto::getTotalMillis).reversed());
+    return new PinningReportDto(threshold.toMillis(), events, untracked.sum(), reports);
+  }
+
+  @DeleteOperation
+  public void reset() {
+    sites.clear();
+    untracked.reset();
+  }
+
+  private void onPinned(RecordedEvent event) {
+    record(event.getDuration(), frames(event.getStackTrace()));
+  }
+
+  void record(Duration duration, List<String> frames) {
+    pinnedTimer.record(duration);
+    String key = String.join("\n", frames);
+    Site site = sites.get(key);
+    if (site == null) {
+      if (sites.size() >= MAX_SITES) {
+        untracked.increment();
+        return;
+      }
+      site = sites.computeIfAbsent(key, ignored -> new Site(frames));
+    }
+    site.record(duration);
+  }
+
+  private static List<String> frames(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return List.of();
+    }
+    List<RecordedFrame> frames = stackTrace.getFrames();
+    List<String> formatted = new ArrayList<>(Math.min(frames.size(), MAX_FRAMES));
+    for (RecordedFrame frame : frames.subList(0, Math.min(frames.size(), MAX_FRAMES))) {
+      formatted.add(
+          frame.getMethod().getType().getName()
+              + "."
+              + frame.getMethod().getName()
+              + ":"
+              + frame.getLineNumber());
+    }
+    return formatted;
+  }
+
+  private static final class Site {
+    private final List<String> stack;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private volatile Instant lastSeen;
+
+    Site(List<String> stack) {
+      this.stack = List.copyOf(stack);
+    }
+
+    void record(Duration duration) {
+      long nanos = duration.toNanos();
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+      lastSeen = Instant.now();
+    }
+
+    PinningSiteDto report() {
+      return new PinningSiteDto(
+          stack,
+          count.sum(),
+          totalNanos.sum() / 1e6,
+          maxNanos.get() / 1e6,
+          String.valueOf(lastSeen));
+    }
+  }
+}
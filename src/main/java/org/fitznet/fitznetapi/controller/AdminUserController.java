@@ -0,0 +1,73 @@
+package org.fitznet.fitznetapi.controller;
+
+import java.io.InputStream;
+import java.util.List;
+import org.fitznet.fitznetapi.dto.requests.DeleteUserRequestDto;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.BatchResultDto;
+import org.fitznet.fitznetapi.exception.BadRequestException;
+import org.fitznet.fitznetapi.service.UserBatchService;
+import org.fitznet.fitznetapi.service.UserImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/** Bulk user operations, restricted to the users in {@code security.admin-user-ids}. */
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class AdminUserController {
+
+  @Autowired UserImportService userImportService;
+  @Autowired UserBatchService userBatchService;
+
+  static final Logger log = LoggerFactory.getLogger(AdminUserController.class);
+  static final int MAX_BATCH_SIZE = 1000;
+
+  /**
+   * Creates users from an NDJSON body of {@code UserDTO}-shaped records. The response streams one
+   * result per record, in input order, while the body is still being read.
+   */
+  @PostMapping(
+      value = "/admin/users/import",
+      consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public StreamingResponseBody importUsers(InputStream body) {
+    log.info("Request for /admin/users/import");
+    return out -> userImportService.importUsers(body, out);
+  }
+
+  /** Applies every update with one bulk write and reports the outcome per item, in order. */
+  @PatchMapping("/admin/users/update")
+  public BatchResultDto updateUsers(@RequestBody List<UpdateUserRequestDto> updates) {
+    log.info("Request for /admin/users/update - {} users", updates.size());
+    checkBatch(updates);
+    return userBatchService.updateUsers(updates);
+  }
+
+  /** Deletes every listed user with one bulk write and reports the outcome per item, in order. */
+  @DeleteMapping("/admin/users/delete")
+  public BatchResultDto deleteUsers(@RequestBody List<DeleteUserRequestDto> deletes) {
+    log.info("Request for /admin/users/delete - {} users", deletes.size());
+    checkBatch(deletes);
+    return userBatchService.deleteUsers(
+        deletes.stream().map(DeleteUserRequestDto::getUsername).toList());
+  }
+
+  private static void checkBatch(List<?> items) {
+    if (items.size() > MAX_BATCH_SIZE) {
+      throw new BadRequestException("At most " + MAX_BATCH_SIZE + " users per batch");
+    }
+    if (items.contains(null)) {
+      throw new BadRequestException("Batch items must not be null");
+    }
+  }
+}
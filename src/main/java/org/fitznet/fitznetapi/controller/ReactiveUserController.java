@@ -0,0 +1,176 @@
+package org.fitznet.fitznetapi.controller;
+
+import jakarta.validation.Valid;
+import org.fitznet.fitznetapi.dto.UserDTO;
+import org.fitznet.fitznetapi.dto.requests.DeleteUserRequestDto;
+import org.fitznet.fitznetapi.dto.requests.LoginRequestDto;
+import org.fitznet.fitznetapi.dto.requests.UpdateProfileRequestDto;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.LoginResponseDto;
+import org.fitznet.fitznetapi.dto.responses.LogoutResponseDto;
+import org.fitznet.fitznetapi.dto.responses.UpdateProfileResponseDto;
+import org.fitznet.fitznetapi.exception.BadRequestException;
+import org.fitznet.fitznetapi.exception.NotFoundException;
+import org.fitznet.fitznetapi.exception.UnauthorizedException;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.UserFields;
+import org.fitznet.fitznetapi.service.ReactiveUserService;
+import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link UserController} routes, requests and responses on WebFlux, for the {@code reactive}
+ * profile. No handler here blocks the event loop.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveUserController {
+
+  @Autowired ReactiveUserService reactiveUserService;
+  @Autowired JwtUtil jwtUtil;
+
+  static final Logger log = LoggerFactory.getLogger(ReactiveUserController.class);
+
+  @PostMapping("/user/create")
+  public Mono<User> createUser(@RequestBody @Valid UserDTO user) {
+    log.info("Request at /user/create - username: {}", user.getUsername());
+    String password = user.getPassword();
+    if (password == null || password.length() < UserDTO.MIN_PASSWORD_LENGTH) {
+      throw new BadRequestException("Password must be at least 8 characters long");
+    }
+    return reactiveUserService.saveUser(
+        User.builder()
+            .username(user.getUsername())
+            .email(user.getEmail())
+            .password(password)
+            .build());
+  }
+
+  @PostMapping("/user/read")
+  public Mono<User> readUser(
+      @RequestBody String username, @RequestParam(required = false) String fields) {
+    log.info("Request for /user/read - {}", username);
+    return reactiveUserService.readByUsername(username, UserController.parseFields(fields));
+  }
+
+  /** Same paging and NDJSON streaming as {@link UserController#readAllUsers}. */
+  @GetMapping("/user/readAll")
+  public ResponseEntity<?> readAllUsers(
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "" + UserController.DEFAULT_PAGE_SIZE) int limit,
+      @RequestParam(required = false) String fields,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    log.info("Request for /user/readAll - after: {}, limit: {}", after, limit);
+    UserFields selected = UserController.parseFields(fields);
+
+    if (UserController.wantsNdjson(accept)) {
+      // WebFlux writes each user as it arrives and stops the cursor if the client goes away
+      return ResponseEntity.ok()
+          .contentType(MediaType.APPLICATION_NDJSON)
+          .body(reactiveUserService.streamAll(selected));
+    }
+
+    if (limit < 1 || limit > UserController.MAX_PAGE_SIZE) {
+      throw new BadRequestException("limit must be between 1 and " + UserController.MAX_PAGE_SIZE);
+    }
+    return ResponseEntity.ok(reactiveUserService.findPage(after, limit, selected));
+  }
+
+  @DeleteMapping("/user/delete")
+  public Mono<Void> deleteUser(@RequestBody @Valid DeleteUserRequestDto user) {
+    log.info("Request for /delete");
+    return reactiveUserService.deleteUser(user.getUsername());
+  }
+
+  @PatchMapping("/user/update")
+  public Mono<Void> updateUser(@RequestBody @Valid UpdateUserRequestDto updateUserDto) {
+    log.info("Request for /update (PATCH)");
+    return reactiveUserService.updateUser(updateUserDto).then();
+  }
+
+  @PutMapping("/user/update")
+  public Mono<UpdateProfileResponseDto> updateProfile(
+      @RequestBody @Valid UpdateProfileRequestDto profileRequest, Authentication auth) {
+    String currentUsername = auth.getName();
+    log.info("Request for /user/update (PUT) - authenticated user: {}", currentUsername);
+
+    UpdateUserRequestDto updateDto = new UpdateUserRequestDto();
+    updateDto.setUsername(currentUsername);
+    boolean hasUpdates = false;
+
+    if (profileRequest.getUsername() != null
+        && !profileRequest.getUsername().equals(currentUsername)) {
+      updateDto.setUpdatedUsername(profileRequest.getUsername());
+      hasUpdates = true;
+    }
+    if (profileRequest.getEmail() != null) {
+      updateDto.setUpdatedEmail(profileRequest.getEmail());
+      hasUpdates = true;
+    }
+    if (profileRequest.getPassword() != null && !profileRequest.getPassword().isBlank()) {
+      updateDto.setUpdatedPassword(profileRequest.getPassword());
+      hasUpdates = true;
+    }
+    if (!hasUpdates) {
+      throw new BadRequestException("No fields to update");
+    }
+
+    return reactiveUserService
+        .updateUser(updateDto)
+        .switchIfEmpty(Mono.error(NotFoundException.USER))
+        .map(
+            updatedUser ->
+                new UpdateProfileResponseDto(
+                    true,
+                    "Profile updated successfully",
+                    updatedUser.getUsername(),
+                    updatedUser.getEmail()));
+  }
+
+  @PostMapping("/user/login")
+  public Mono<LoginResponseDto> login(@RequestBody @Valid LoginRequestDto loginRequest) {
+    log.info("Request for /user/login - {}", loginRequest.getUsername());
+    return reactiveUserService
+        .authenticate(loginRequest.getUsername(), loginRequest.getPassword())
+        .map(
+            result -> {
+              if (!result.isAuthenticated()) {
+                throw UnauthorizedException.BAD_CREDENTIALS;
+              }
+              User user = result.getUser();
+              String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+              return new LoginResponseDto(
+                  true, "Login successful", user.getUsername(), user.getEmail(), token);
+            });
+  }
+
+  @PostMapping("/user/logout")
+  public Mono<LogoutResponseDto> logout(Authentication auth) {
+    log.info("Request for /user/logout - {}", auth.getName());
+    if (!(auth.getCredentials() instanceof VerifiedToken token) || token.getTokenId() == null) {
+      throw new BadRequestException("Token cannot be revoked");
+    }
+    return reactiveUserService
+        .revoke(token)
+        .thenReturn(new LogoutResponseDto(true, "Logout successful"));
+  }
+}
@@ -1,7 +1,12 @@
 package org.fitznet.fitznetapi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import jakarta.validation.constraints.NotBlank;
 import org.fitznet.fitznetapi.dto.UserDTO;
@@ -10,15 +15,28 @@ import org.fitznet.fitznetapi.dto.requests.LoginRequestDto;
 import org.fitznet.fitznetapi.dto.requests.UpdateProfileRequestDto;
 import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
 import org.fitznet.fitznetapi.dto.responses.LoginResponseDto;
+import org.fitznet.fitznetapi.dto.responses.LogoutResponseDto;
 import org.fitznet.fitznetapi.dto.responses.UpdateProfileResponseDto;
+import org.fitznet.fitznetapi.exception.BadRequestException;
+import org.fitznet.fitznetapi.exception.NotFoundException;
+import org.fitznet.fitznetapi.exception.ProblemResponses;
+import org.fitznet.fitznetapi.exception.UnauthorizedException;
 import org.fitznet.fitznetapi.model.User;
-import org.fitznet.fitznetapi.repository.UserRepository;
+import org.fitznet.fitznetapi.repository.UserFields;
+import org.fitznet.fitznetapi.service.TokenRevocationService;
+import org.fitznet.fitznetapi.service.UserExistenceFilter;
 import org.fitznet.fitznetapi.service.UserService;
 import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,20 +45,29 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class UserController {
 
   @Autowired UserService userService;
   @Autowired JwtUtil jwtUtil;
+  @Autowired TokenRevocationService tokenRevocationService;
+  @Autowired UserExistenceFilter userExistenceFilter;
 
   static final Logger log = LoggerFactory.getLogger(UserController.class);
-  @Autowired private UserRepository userRepository;
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
+  static final int STREAM_FLUSH_EVERY = 100;
+
+  @Autowired ObjectMapper objectMapper;
 
   @PostMapping("/user/create")
-  public User createUser(@RequestBody @Valid UserDTO user) {
+  public CompletableFuture<User> createUser(@RequestBody @Valid UserDTO user) {
     log.info("Request at /user/create - username: {}", user.getUsername());
     performRequestValidations(user);
     return userService.saveUser(
@@ -51,35 +78,96 @@ public class UserController {
             .build());
   }
 
+  /** {@code fields}, e.g. {@code username,email}, limits the response to those fields. */
   @PostMapping("/user/read")
-  public User readUser(@RequestBody @NotBlank String username) {
+  public User readUser(
+      @RequestBody @NotBlank String username, @RequestParam(required = false) String fields) {
     log.info("Request for /user/read - {}", username);
-    return userService.readByUsername(username);
+    return userService.readByUsername(username, parseFields(fields));
   }
 
+  /**
+   * Pages through users by id. With {@code Accept: application/x-ndjson} it instead streams every
+   * user, one JSON document per line, straight from a Mongo cursor. {@code fields} is pushed down
+   * into the Mongo projection, so fields nobody asked for are never read.
+   */
   @GetMapping("/user/readAll")
-  public List<User> readAllUsers() {
-    log.info("Request for /user/readAll");
-    return userService.findAll();
+  public ResponseEntity<?> readAllUsers(
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+      @RequestParam(required = false) String fields,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    log.info("Request for /user/readAll - after: {}, limit: {}", after, limit);
+    UserFields selected = parseFields(fields);
+
+    if (wantsNdjson(accept)) {
+      return ResponseEntity.ok()
+          .contentType(MediaType.APPLICATION_NDJSON)
+          .body((StreamingResponseBody) out -> streamUsers(out, selected));
+    }
+
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    return ResponseEntity.ok(userService.findPage(after, limit, selected));
+  }
+
+  static UserFields parseFields(String fields) {
+    try {
+      return UserFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(e.getMessage());
+    }
+  }
+
+  private void streamUsers(OutputStream out, UserFields fields) throws IOException {
+    int written = 0;
+    // Closing the stream closes the cursor, including when the client goes away mid-response
+    try (Stream<User> users = userService.streamAll(fields)) {
+      Iterator<User> iterator = users.iterator();
+      while (iterator.hasNext()) {
+        out.write(objectMapper.writeValueAsBytes(iterator.next()));
+        out.write('\n');
+        // Flushing regularly keeps memory flat and surfaces a disconnect as an IOException
+        if (++written % STREAM_FLUSH_EVERY == 0) {
+          out.flush();
+        }
+      }
+      out.flush();
+    } catch (IOException e) {
+      log.info("Client disconnected from /user/readAll stream after {} users", written);
+    }
+  }
+
+  static boolean wantsNdjson(String accept) {
+    if (accept == null) {
+      return false;
+    }
+    try {
+      return MediaType.parseMediaTypes(accept).stream()
+          .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
   }
 
   @DeleteMapping("/user/delete")
   public void deleteUser(@RequestBody @Valid DeleteUserRequestDto user) {
     log.info("Request for /delete");
     if (!doesUserAlreadyExist(user.getUsername())) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found in db");
+      throw new NotFoundException("User not found in db");
     }
     userService.deleteUser(user.getUsername());
   }
 
   @PatchMapping("/user/update")
-  public void updateUser(@RequestBody @Valid UpdateUserRequestDto updateUserDto) {
+  public CompletableFuture<Void> updateUser(@RequestBody @Valid UpdateUserRequestDto updateUserDto) {
     log.info("Request for /update (PATCH)");
-    userService.updateUser(updateUserDto);
+    return userService.updateUser(updateUserDto).thenAccept(updatedUser -> {});
   }
 
   @PutMapping("/user/update")
-  public UpdateProfileResponseDto updateProfile(@RequestBody @Valid UpdateProfileRequestDto profileRequest) {
+  public CompletableFuture<ResponseEntity<?>> updateProfile(@RequestBody @Valid UpdateProfileRequestDto profileRequest) {
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     String currentUsername = auth.getName();
     log.info("Request for /user/update (PUT) - authenticated user: {}", currentUsername);
@@ -106,62 +194,74 @@ public class UserController {
     }
 
     if (!hasUpdates) {
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
+      throw new BadRequestException("No fields to update");
     }
 
-    User updatedUser = userService.updateUser(updateDto);
-
-    if (updatedUser == null) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-    }
-
-    return new UpdateProfileResponseDto(true, "Profile updated successfully", updatedUser.getUsername(), updatedUser.getEmail());
+    return userService
+        .updateUser(updateDto)
+        .thenApply(
+            updatedUser -> {
+              if (updatedUser == null) {
+                return ProblemResponses.of(NotFoundException.USER);
+              }
+              return ResponseEntity.ok(
+                  new UpdateProfileResponseDto(
+                      true,
+                      "Profile updated successfully",
+                      updatedUser.getUsername(),
+                      updatedUser.getEmail()));
+            });
   }
 
   @PostMapping("/user/login")
-  public LoginResponseDto login(@RequestBody @Valid LoginRequestDto loginRequest) {
+  public CompletableFuture<ResponseEntity<?>> login(@RequestBody @Valid LoginRequestDto loginRequest) {
     log.info("Request for /user/login - {}", loginRequest.getUsername());
 
-    boolean isValid = userService.verifyPassword(loginRequest.getUsername(), loginRequest.getPassword());
+    // The request thread is released here; the BCrypt check finishes on the hashing pool. A
+    // bad password is returned as a response, not thrown: a throw inside the stage is wrapped in a
+    // CompletionException, whose stack trace is filled in on every failed login.
+    return userService
+        .authenticate(loginRequest.getUsername(), loginRequest.getPassword())
+        .thenApply(
+            result -> {
+              if (!result.isAuthenticated()) {
+                return ProblemResponses.of(UnauthorizedException.BAD_CREDENTIALS);
+              }
+              User user = result.getUser();
+              String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+              return ResponseEntity.ok(
+                  new LoginResponseDto(
+                      true, "Login successful", user.getUsername(), user.getEmail(), token));
+            });
+  }
+
+  @PostMapping("/user/logout")
+  public LogoutResponseDto logout() {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    log.info("Request for /user/logout - {}", auth.getName());
 
-    if (isValid) {
-      User user = userService.readByUsername(loginRequest.getUsername());
-      String token = jwtUtil.generateToken(user.getUsername());
-      return new LoginResponseDto(true, "Login successful", user.getUsername(), user.getEmail(), token);
-    } else {
-      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid username or password");
+    if (!(auth.getCredentials() instanceof VerifiedToken token) || token.getTokenId() == null) {
+      throw new BadRequestException("Token cannot be revoked");
     }
+
+    tokenRevocationService.revoke(token);
+    return new LogoutResponseDto(true, "Logout successful");
   }
 
   private boolean doesUserAlreadyExist(String username) {
-    var possibleUser = userRepository.findByUsername(username);
+    if (!userExistenceFilter.mightContainUsername(username)) {
+      return false;
+    }
+    var possibleUser = userService.readByUsername(username);
     log.info("Checking to see if user {} exists in db", username);
     return null != possibleUser;
   }
 
-  private boolean doesUserAlreadyExist(UserDTO user) {
-    var possibleUser = userRepository.findByUsername(user.getUsername());
-    log.info("Checking to see if user {} exists in db", user.getUsername());
-    return null != possibleUser;
-  }
-
-  private boolean isEmailAlreadyInUse(UserDTO user) {
-    var possibleUser = userRepository.findByEmail(user.getEmail());
-    log.info("Checking to see if email {} exists in db", user.getEmail());
-    return null != possibleUser;
-  }
-
+  // Taken usernames and emails are caught by the unique indexes when UserService inserts
   private void performRequestValidations(UserDTO user) {
-    if (doesUserAlreadyExist(user)) {
-      throw new ResponseStatusException(HttpStatus.CONFLICT, "User already exists");
-    }
-
-    if (isEmailAlreadyInUse(user)) {
-      throw new ResponseStatusException(HttpStatus.CONFLICT, "Email in use");
-    }
-
-    if (user.getPassword() == null || user.getPassword().length() < 8) {
-      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password must be at least 8 characters long");
+    String password = user.getPassword();
+    if (password == null || password.length() < UserDTO.MIN_PASSWORD_LENGTH) {
+      throw new BadRequestException("Password must be at least 8 characters long");
     }
   }
 }
@@ -11,6 +11,8 @@ import lombok.Value;
 @Value
 @ToString(exclude = "password")
 public class UserDTO {
+  public static final int MIN_PASSWORD_LENGTH = 8;
+
   @NotBlank String username;
   @Email String email;
   @NotBlank String password;
@@ -0,0 +1,25 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The outcome for one item of a batch update or delete, in request order. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultDto {
+  String username;
+  /** 1 if a user with {@link #username} existed, else 0. */
+  int matched;
+  /**
+   * 0 if the item was skipped or failed. Absent when its write went through: Mongo only counts
+   * changed documents for the whole bulk write, which is the batch's {@code modified}, so it isn't
+   * known whether this user's stored values actually differed.
+   */
+  Integer modified;
+  /** Why the item was skipped or failed; absent on success. */
+  String error;
+}
@@ -0,0 +1,19 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a batch update or delete. The totals are what Mongo reported for the bulk write; for
+ * deletes, {@code modified} counts the users removed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDto {
+  long matched;
+  long modified;
+  List<BatchItemResultDto> items;
+}
@@ -0,0 +1,27 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The outcome for one record of a bulk import, written as one line of the NDJSON response. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResultDto {
+  /** 1-based line of the record in the request body. */
+  long line;
+
+  String username;
+  Status status;
+  String message;
+
+  public enum Status {
+    CREATED,
+    INVALID,
+    DUPLICATE,
+    FAILED
+  }
+}
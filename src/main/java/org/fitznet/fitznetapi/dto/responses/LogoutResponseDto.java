@@ -0,0 +1,13 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogoutResponseDto {
+  boolean success;
+  String message;
+}
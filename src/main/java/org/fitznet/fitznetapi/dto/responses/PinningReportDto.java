@@ -0,0 +1,19 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** What {@code /actuator/pinning} returns: pinning grouped by stack, worst total time first. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinningReportDto {
+  /** Pins shorter than this are not recorded. */
+  long thresholdMillis;
+  long events;
+  /** Events from stacks seen after the per-stack limit was reached; counted but not grouped. */
+  long untracked;
+  List<PinningSiteDto> sites;
+}
@@ -0,0 +1,19 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One code path that pinned virtual threads, identified by the top frames of its stack. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinningSiteDto {
+  /** Innermost frame first, as {@code class.method:line}. */
+  List<String> stack;
+  long count;
+  double totalMillis;
+  double maxMillis;
+  String lastSeen;
+}
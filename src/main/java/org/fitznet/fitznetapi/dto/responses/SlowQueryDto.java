@@ -0,0 +1,27 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One command shape that ran over the slow-query threshold. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowQueryDto {
+  String command;
+  String collection;
+  /** Repository method that last issued it, or {@code none}. */
+  String operation;
+  /** The command as JSON with every client-supplied value replaced by a placeholder. */
+  String shape;
+  long count;
+  double totalMillis;
+  double maxMillis;
+  String lastSeen;
+  /** Winning plan stages, outermost first; empty until the explain has come back. */
+  List<String> plan;
+  /** Null until explained; true if the winning plan reads the whole collection. */
+  Boolean collectionScan;
+}
@@ -0,0 +1,19 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** What {@code /actuator/slowqueries} returns: slow commands grouped by shape, worst first. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowQueryReportDto {
+  /** Commands faster than this are not recorded. */
+  long thresholdMillis;
+  long events;
+  /** Slow commands of shapes seen after the per-shape limit was reached; counted only. */
+  long untracked;
+  List<SlowQueryDto> queries;
+}
@@ -0,0 +1,16 @@
+package org.fitznet.fitznetapi.dto.responses;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.fitznet.fitznetapi.model.User;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageDto {
+  List<User> users;
+  /** Pass as {@code after} to fetch the next page; null on the last page. */
+  String next;
+}
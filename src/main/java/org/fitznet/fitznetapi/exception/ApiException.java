@@ -0,0 +1,31 @@
+package org.fitznet.fitznetapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * An expected failure with a status and a message for the client: a bad password, a missing user,
+ * a taken username. These are outcomes, not bugs, so no stack trace is captured. Filling one in
+ * walks every frame of the request thread, which under credential stuffing made failed logins the
+ * biggest source of allocation. Suppression is off too, so instances with a fixed message can be
+ * shared constants.
+ *
+ * <p>{@code GlobalExceptionHandler} answers with a cached {@link ProblemResponses} body.
+ */
+public class ApiException extends RuntimeException {
+
+  private final HttpStatus status;
+
+  protected ApiException(HttpStatus status, String reason) {
+    super(reason, null, false, false);
+    this.status = status;
+  }
+
+  public HttpStatus getStatusCode() {
+    return status;
+  }
+
+  /** What the client is told; the {@code detail} and {@code message} of the response body. */
+  public String getReason() {
+    return getMessage();
+  }
+}
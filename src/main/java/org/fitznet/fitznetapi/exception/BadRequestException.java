@@ -0,0 +1,11 @@
+package org.fitznet.fitznetapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/** 400 Bad Request. */
+public class BadRequestException extends ApiException {
+
+  public BadRequestException(String reason) {
+    super(HttpStatus.BAD_REQUEST, reason);
+  }
+}
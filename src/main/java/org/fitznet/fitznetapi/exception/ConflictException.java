@@ -0,0 +1,11 @@
+package org.fitznet.fitznetapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/** 409 Conflict. */
+public class ConflictException extends ApiException {
+
+  public ConflictException(String reason) {
+    super(HttpStatus.CONFLICT, reason);
+  }
+}
@@ -0,0 +1,13 @@
+package org.fitznet.fitznetapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/** 404 Not Found. */
+public class NotFoundException extends ApiException {
+
+  public static final NotFoundException USER = new NotFoundException("User not found");
+
+  public NotFoundException(String reason) {
+    super(HttpStatus.NOT_FOUND, reason);
+  }
+}
@@ -0,0 +1,80 @@
+package org.fitznet.fitznetapi.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * RFC 7807 error responses, encoded once per status and message and then reused. The body keeps
+ * the {@code success}, {@code message} and {@code status} fields clients already read, next to
+ * the standard {@code type}, {@code title} and {@code detail}:
+ *
+ * <pre>{"type":"about:blank","title":"Unauthorized","status":401,
+ *  "detail":"Invalid username or password","success":false,
+ *  "message":"Invalid username or password"}</pre>
+ */
+public final class ProblemResponses {
+
+  // Messages are almost all constants; this only stops a message built from input growing it
+  static final int MAX_CACHED = 256;
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final Map<Key, ResponseEntity<byte[]>> CACHE = new ConcurrentHashMap<>();
+
+  private ProblemResponses() {}
+
+  /** The response for {@code status} with {@code detail}; shared, so never modify it. */
+  public static ResponseEntity<byte[]> of(HttpStatus status, String detail) {
+    Key key = new Key(status, detail);
+    ResponseEntity<byte[]> response = CACHE.get(key);
+    if (response != null) {
+      return response;
+    }
+    response = build(status, detail);
+    if (CACHE.size() < MAX_CACHED) {
+      CACHE.putIfAbsent(key, response);
+    }
+    return response;
+  }
+
+  /**
+   * The response for {@code exception}, for code that can return a failure instead of throwing
+   * it. A throw inside a {@code CompletableFuture} stage is wrapped in a CompletionException, which
+   * does fill in its stack trace.
+   */
+  public static ResponseEntity<byte[]> of(ApiException exception) {
+    return of(exception.getStatusCode(), exception.getReason());
+  }
+
+  /** The body alone, for writers outside Spring MVC such as security entry points. */
+  public static byte[] encode(HttpStatus status, String detail) {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("type", "about:blank");
+    body.put("title", status.getReasonPhrase());
+    body.put("status", status.value());
+    body.put("detail", detail);
+    body.put("success", false);
+    body.put("message", detail);
+    try {
+      return OBJECT_MAPPER.writeValueAsBytes(body);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static ResponseEntity<byte[]> build(HttpStatus status, String detail) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+    return new ResponseEntity<>(
+        encode(status, detail), HttpHeaders.readOnlyHttpHeaders(headers), status);
+  }
+
+  private record Key(HttpStatus status, String detail) {}
+}
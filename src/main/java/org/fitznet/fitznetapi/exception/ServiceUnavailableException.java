@@ -0,0 +1,11 @@
+package org.fitznet.fitznetapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/** 503 Service Unavailable. */
+public class ServiceUnavailableException extends ApiException {
+
+  public ServiceUnavailableException(String reason) {
+    super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+  }
+}
@@ -0,0 +1,15 @@
+package org.fitznet.fitznetapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/** 401 Unauthorized. */
+public class UnauthorizedException extends ApiException {
+
+  /** Wrong password and unknown username alike, so a client can't probe for accounts. */
+  public static final UnauthorizedException BAD_CREDENTIALS =
+      new UnauthorizedException("Invalid username or password");
+
+  public UnauthorizedException(String reason) {
+    super(HttpStatus.UNAUTHORIZED, reason);
+  }
+}
@@ -0,0 +1,27 @@
+package org.fitznet.fitznetapi.model;
+
+import java.time.Instant;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/** A logged-out token. Mongo's TTL monitor deletes it once the token would have expired anyway. */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Document("revoked_tokens")
+public class RevokedToken {
+
+  /** The token's {@code jti}. */
+  @Id String id;
+
+  Instant expiresAt;
+  Instant revokedAt;
+}
@@ -1,6 +1,8 @@
 package org.fitznet.fitznetapi.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,6 +20,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Document("users")
 @ToString(exclude = "password")
+// Sparse fieldset responses leave the fields nobody asked for unset
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class User {
 
   @Id String id;
@@ -25,4 +29,7 @@ public class User {
   String username;
   @JsonIgnore String password;
   String email;
+
+  /** Set on every create and update so other nodes can poll for changes. */
+  @JsonIgnore Instant updatedAt;
 }
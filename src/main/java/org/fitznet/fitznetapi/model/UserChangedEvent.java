@@ -0,0 +1,35 @@
+package org.fitznet.fitznetapi.model;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A user was created, updated or deleted. Written to a capped collection that every node tails,
+ * so each can drop its cached copies. Carries both old and new names after a rename.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Document("user_changes")
+public class UserChangedEvent {
+
+  @Id ObjectId id;
+
+  List<String> usernames;
+  List<String> emails;
+  /** Node that made the change; it has already applied it locally. */
+  String origin;
+
+  Instant createdAt;
+}
@@ -0,0 +1,27 @@
+package org.fitznet.fitznetapi.repository;
+
+import org.fitznet.fitznetapi.model.User;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive-driver twin of {@link UserRepository}, used by the {@code reactive} profile. Only
+ * that profile enables reactive repositories, so this bean doesn't exist on the servlet stack.
+ */
+@Repository
+public interface ReactiveUserRepository
+    extends ReactiveMongoRepository<User, String>, ReactiveUserRepositoryCustom {
+
+  /** Just the fields login needs, so the whole document never crosses the wire. */
+  @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'email': 1, 'password': 1 }")
+  Mono<User> findCredentialsByUsername(String username);
+
+  /** A user without the password hash, which is what gets cached and returned to clients. */
+  @Query(value = "{ 'username': ?0 }", fields = "{ 'password': 0 }")
+  Mono<User> findProfileByUsername(String username);
+
+  /** How many users were deleted, so a missing user needs no extra lookup. */
+  Mono<Long> deleteByUsername(String username);
+}
@@ -0,0 +1,22 @@
+package org.fitznet.fitznetapi.repository;
+
+import org.bson.types.ObjectId;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** The non-blocking versions of the {@link UserRepositoryCustom} operations the user API needs. */
+public interface ReactiveUserRepositoryCustom {
+  /** {@code updatedPassword}, if set, must already be hashed. Empty if no user matched. */
+  Mono<User> findAndModifyUser(UpdateUserRequestDto updateRequest);
+
+  /** See {@link UserRepositoryCustom#replacePasswordHash}. */
+  Mono<Boolean> replacePasswordHash(String username, String currentHash, String newHash);
+
+  /** See {@link UserRepositoryCustom#findPageAfter}. */
+  Flux<User> findPageAfter(ObjectId after, int limit, UserFields fields);
+
+  /** Every user in id order from a single cursor, which is closed when the flux is cancelled. */
+  Flux<User> streamAll(UserFields fields);
+}
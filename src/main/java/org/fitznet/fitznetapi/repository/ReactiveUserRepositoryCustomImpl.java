@@ -0,0 +1,64 @@
+package org.fitznet.fitznetapi.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.model.User;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds the same queries and updates as {@link UserRepositoryCustomImpl}. Deliberately not a
+ * component: Spring Data picks it up as the fragment of {@link ReactiveUserRepository}, and only
+ * when reactive repositories are enabled, so the servlet stack never needs a reactive template.
+ */
+public class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public ReactiveUserRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<User> findAndModifyUser(UpdateUserRequestDto updateRequest) {
+    Update update = UserRepositoryCustomImpl.updateFor(updateRequest);
+    if (update == null) {
+      return Mono.empty();
+    }
+    return reactiveMongoTemplate.findAndModify(
+        UserRepositoryCustomImpl.byUsername(updateRequest.getUsername()),
+        update,
+        new FindAndModifyOptions().returnNew(true),
+        User.class);
+  }
+
+  @Override
+  public Mono<Boolean> replacePasswordHash(String username, String currentHash, String newHash) {
+    Query query =
+        new Query(Criteria.where("username").is(username).and("password").is(currentHash));
+    return reactiveMongoTemplate
+        .updateFirst(query, new Update().set("password", newHash), User.class)
+        .map(result -> result.getModifiedCount() > 0);
+  }
+
+  @Override
+  public Flux<User> findPageAfter(ObjectId after, int limit, UserFields fields) {
+    Document filter =
+        after == null ? new Document() : new Document("_id", new Document("$gt", after));
+    return reactiveMongoTemplate.find(
+        UserRepositoryCustomImpl.listing(filter, fields).limit(limit), User.class);
+  }
+
+  @Override
+  public Flux<User> streamAll(UserFields fields) {
+    // Demand-driven: documents are pulled from the cursor only as fast as the client reads them
+    return reactiveMongoTemplate.find(
+        UserRepositoryCustomImpl.listing(new Document(), fields), User.class);
+  }
+}
@@ -0,0 +1,36 @@
+package org.fitznet.fitznetapi.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * Which repository method the current thread is inside, e.g. {@code
+ * UserRepository.findProfileByUsername}, so the Mongo commands it issues can be tagged with it.
+ * Only the outermost repository call counts. Commands issued elsewhere, or later on another thread
+ * as with reactive repositories and stream cursors, have no operation.
+ */
+public final class RepositoryOperation {
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private RepositoryOperation() {}
+
+  /** The operation in progress on this thread, or null. */
+  public static String current() {
+    return CURRENT.get();
+  }
+
+  /** Advice for the proxy of {@code repositoryName} that records each call as the operation. */
+  public static MethodInterceptor interceptor(String repositoryName) {
+    return invocation -> {
+      if (CURRENT.get() != null) {
+        return invocation.proceed();
+      }
+      CURRENT.set(repositoryName + "." + invocation.getMethod().getName());
+      try {
+        return invocation.proceed();
+      } finally {
+        CURRENT.remove();
+      }
+    };
+  }
+}
@@ -0,0 +1,15 @@
+package org.fitznet.fitznetapi.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import org.fitznet.fitznetapi.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+  List<RevokedToken> findByRevokedAtAfter(Instant revokedAt);
+
+  Stream<RevokedToken> streamByExpiresAtAfter(Instant expiresAt);
+}
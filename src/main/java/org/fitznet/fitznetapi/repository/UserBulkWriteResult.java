@@ -0,0 +1,19 @@
+package org.fitznet.fitznetapi.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * What one unordered bulk write did. Mongo reports counts for the whole write only; the errors
+ * carry the index of the operation they belong to.
+ */
+@Value
+public class UserBulkWriteResult {
+  public static final UserBulkWriteResult EMPTY = new UserBulkWriteResult(0, 0, 0, List.of());
+
+  int matchedCount;
+  int modifiedCount;
+  int deletedCount;
+  List<BulkWriteError> errors;
+}
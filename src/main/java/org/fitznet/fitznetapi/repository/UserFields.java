@@ -0,0 +1,104 @@
+package org.fitznet.fitznetapi.repository;
+
+import java.util.Map;
+import org.bson.Document;
+import org.fitznet.fitznetapi.model.User;
+
+/**
+ * A client-chosen subset of the public user fields, as in {@code ?fields=username,email}. Only the
+ * names listed here can be requested, so the password hash can never be selected. Every subset is
+ * built once at class load, projection document included, and parsing just sets bits in a mask.
+ */
+public final class UserFields {
+
+  private static final int ID = 1;
+  private static final int USERNAME = 1 << 1;
+  private static final int EMAIL = 1 << 2;
+  private static final int ALL_MASK = ID | USERNAME | EMAIL;
+
+  private static final Map<String, Integer> BITS =
+      Map.of("id", ID, "username", USERNAME, "email", EMAIL);
+
+  private static final UserFields[] BY_MASK = new UserFields[ALL_MASK + 1];
+
+  static {
+    for (int mask = 0; mask <= ALL_MASK; mask++) {
+      BY_MASK[mask] = new UserFields(mask);
+    }
+  }
+
+  /** Every public field; what the endpoints return when no {@code fields} are given. */
+  public static final UserFields ALL = BY_MASK[ALL_MASK];
+
+  private final int mask;
+  private final Document projection;
+
+  private UserFields(int mask) {
+    this.mask = mask;
+    // Mongo returns _id unless told otherwise, and the password is never listed
+    Document document = new Document("_id", (mask & ID) != 0 ? 1 : 0);
+    if ((mask & USERNAME) != 0) {
+      document.append("username", 1);
+    }
+    if ((mask & EMAIL) != 0) {
+      document.append("email", 1);
+    }
+    this.projection = document;
+  }
+
+  /**
+   * Parses a comma-separated list of field names. Null or blank means {@link #ALL}.
+   *
+   * @throws IllegalArgumentException if a name is not a public user field
+   */
+  public static UserFields parse(String fields) {
+    if (fields == null || fields.isBlank()) {
+      return ALL;
+    }
+    int mask = 0;
+    int start = 0;
+    while (start <= fields.length()) {
+      int end = fields.indexOf(',', start);
+      if (end < 0) {
+        end = fields.length();
+      }
+      String name = fields.substring(start, end).trim();
+      Integer bit = BITS.get(name);
+      if (bit == null) {
+        throw new IllegalArgumentException("Unknown user field: " + name);
+      }
+      mask |= bit;
+      start = end + 1;
+    }
+    return BY_MASK[mask];
+  }
+
+  /** The Mongo projection for these fields. Shared between queries, so never modify it. */
+  Document projection() {
+    return projection;
+  }
+
+  /** The same fields plus the id, for queries that need it to compute a page token. */
+  public UserFields withId() {
+    return BY_MASK[mask | ID];
+  }
+
+  public boolean includesId() {
+    return (mask & ID) != 0;
+  }
+
+  /**
+   * A copy of {@code user} holding only these fields, or the user itself when every field was
+   * asked for. Used on cached users, which must not be modified.
+   */
+  public User restrict(User user) {
+    if (user == null || mask == ALL_MASK) {
+      return user;
+    }
+    return User.builder()
+        .id((mask & ID) != 0 ? user.getId() : null)
+        .username((mask & USERNAME) != 0 ? user.getUsername() : null)
+        .email((mask & EMAIL) != 0 ? user.getEmail() : null)
+        .build();
+  }
+}
@@ -2,13 +2,25 @@ package org.fitznet.fitznetapi.repository;
 
 import org.fitznet.fitznetapi.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
   User findByUsername(String username);
 
+  /** Just the fields login needs, so the whole document never crosses the wire. */
+  @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'email': 1, 'password': 1 }")
+  User findCredentialsByUsername(String username);
+
   User findByEmail(String email);
 
+  /** A user without the password hash, which is what gets cached and returned to clients. */
+  @Query(value = "{ 'username': ?0 }", fields = "{ 'password': 0 }")
+  User findProfileByUsername(String username);
+
+  @Query(value = "{ 'email': ?0 }", fields = "{ 'password': 0 }")
+  User findProfileByEmail(String email);
+
   void deleteByUsername(String username);
 }
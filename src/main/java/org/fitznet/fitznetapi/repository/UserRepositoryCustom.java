@@ -1,9 +1,48 @@
 package org.fitznet.fitznetapi.repository;
 
+import com.mongodb.bulk.BulkWriteError;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.bson.types.ObjectId;
 import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
 import org.fitznet.fitznetapi.model.User;
 
 public interface UserRepositoryCustom {
+  /** {@code updatedPassword}, if set, must already be hashed. */
   User findAndModifyUser(UpdateUserRequestDto updateRequest);
-}
 
+  /**
+   * Sets a new password hash only if the stored hash is still {@code currentHash}, so a rehash can
+   * never overwrite a password change that happened in the meantime.
+   */
+  boolean replacePasswordHash(String username, String currentHash, String newHash);
+
+  /**
+   * Up to {@code limit} users with an id greater than {@code after}, or from the start if null.
+   * Only {@code fields} are read from Mongo.
+   */
+  List<User> findPageAfter(ObjectId after, int limit, UserFields fields);
+
+  /** Every user in id order from a single cursor. The caller must close the stream. */
+  Stream<User> streamAll(UserFields fields);
+
+  /**
+   * Inserts every user in one unordered bulk write, so a bad document doesn't stop the rest.
+   * Returns an error for each user that was not written, carrying its index in {@code users}.
+   */
+  List<BulkWriteError> insertUnordered(List<User> users);
+
+  /** Which of {@code usernames} exist, from a single {@code $in} query. */
+  Set<String> findExistingUsernames(Collection<String> usernames);
+
+  /**
+   * Applies every update, passwords already hashed, in one unordered bulk write. Each update must
+   * change at least one field. Errors carry the index of their update in {@code updates}.
+   */
+  UserBulkWriteResult updateUnordered(List<UpdateUserRequestDto> updates);
+
+  /** Deletes every user in one unordered bulk write. Errors carry the index of their username. */
+  UserBulkWriteResult deleteUnordered(List<String> usernames);
+}
@@ -2,29 +2,67 @@ package org.fitznet.fitznetapi.repository;
 
 import static java.util.Objects.nonNull;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
 import org.fitznet.fitznetapi.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.BasicQuery;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Repository;
 
 @Slf4j
 @Repository
 public class UserRepositoryCustomImpl implements UserRepositoryCustom {
 
+  /**
+   * Conflicts are attributed by the duplicate key's field, so these names matter only on servers
+   * too old to report it.
+   */
+  public static final String USERNAME_INDEX = "username_unique";
+
+  public static final String EMAIL_INDEX = "email_unique";
+
   private final MongoTemplate mongoTemplate;
-  private final PasswordEncoder passwordEncoder;
 
   @Autowired
-  public UserRepositoryCustomImpl(MongoTemplate mongoTemplate, PasswordEncoder passwordEncoder) {
+  public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
     this.mongoTemplate = mongoTemplate;
-    this.passwordEncoder = passwordEncoder;
+  }
+
+  @PostConstruct
+  void ensureIndexes() {
+    IndexOperations indexes = mongoTemplate.indexOps(User.class);
+    try {
+      indexes.ensureIndex(
+          new Index().on("username", Sort.Direction.ASC).unique().named(USERNAME_INDEX));
+      // Sparse, so users created without an email don't collide with each other
+      indexes.ensureIndex(
+          new Index().on("email", Sort.Direction.ASC).unique().sparse().named(EMAIL_INDEX));
+    } catch (DataAccessException e) {
+      // Typically existing duplicates; until they are cleaned up signups are not race-free
+      log.error("Could not create unique user indexes: {}", e.getMessage());
+    }
   }
 
   @Override
@@ -32,9 +70,30 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
     log.debug("Executing findAndModify for user: {}", updateRequest.getUsername());
 
     // Build the query to find the user by username
-    Query query = new Query(Criteria.where("username").is(updateRequest.getUsername()));
+    Query query = byUsername(updateRequest.getUsername());
+
+    Update update = updateFor(updateRequest);
+    if (update == null) {
+      log.warn("No fields to update for user: {}", updateRequest.getUsername());
+      return null;
+    }
+
+    // Execute findAndModify - returns the updated document
+    // Using FindAndModifyOptions to return the new (updated) document
+    FindAndModifyOptions options = new FindAndModifyOptions().returnNew(true);
+    User updatedUser = mongoTemplate.findAndModify(query, update, options, User.class);
+
+    if (updatedUser == null) {
+      log.warn("User not found for update: {}", updateRequest.getUsername());
+    } else {
+      log.debug("User updated successfully via findAndModify");
+    }
 
-    // Build the update operations
+    return updatedUser;
+  }
+
+  /** The update operations for one request, or null if it changes nothing. */
+  static Update updateFor(UpdateUserRequestDto updateRequest) {
     Update update = new Update();
     boolean hasUpdates = false;
 
@@ -52,28 +111,105 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
 
     if (nonNull(updateRequest.getUpdatedPassword())) {
       log.debug("Adding password update to query");
-      String hashedPassword = passwordEncoder.encode(updateRequest.getUpdatedPassword());
-      update.set("password", hashedPassword);
+      // Already hashed by UserService on the password hashing pool
+      update.set("password", updateRequest.getUpdatedPassword());
       hasUpdates = true;
     }
 
     if (!hasUpdates) {
-      log.warn("No fields to update for user: {}", updateRequest.getUsername());
       return null;
     }
 
-    // Execute findAndModify - returns the updated document
-    // Using FindAndModifyOptions to return the new (updated) document
-    FindAndModifyOptions options = new FindAndModifyOptions().returnNew(true);
-    User updatedUser = mongoTemplate.findAndModify(query, update, options, User.class);
+    update.set("updatedAt", Instant.now());
+    return update;
+  }
 
-    if (updatedUser == null) {
-      log.warn("User not found for update: {}", updateRequest.getUsername());
-    } else {
-      log.debug("User updated successfully via findAndModify");
+  @Override
+  public boolean replacePasswordHash(String username, String currentHash, String newHash) {
+    Query query =
+        new Query(Criteria.where("username").is(username).and("password").is(currentHash));
+    Update update = new Update().set("password", newHash);
+    return mongoTemplate.updateFirst(query, update, User.class).getModifiedCount() > 0;
+  }
+
+  @Override
+  public List<User> findPageAfter(ObjectId after, int limit, UserFields fields) {
+    // Keyset pagination: seek past the last id on the _id index instead of skipping documents
+    Document filter =
+        after == null ? new Document() : new Document("_id", new Document("$gt", after));
+    return mongoTemplate.find(listing(filter, fields).limit(limit), User.class);
+  }
+
+  @Override
+  public Stream<User> streamAll(UserFields fields) {
+    return mongoTemplate.stream(listing(new Document(), fields), User.class);
+  }
+
+  @Override
+  public List<BulkWriteError> insertUnordered(List<User> users) {
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+    bulk.insert(users);
+    try {
+      bulk.execute();
+      return List.of();
+    } catch (BulkOperationException e) {
+      // Unordered, so everything not listed here was written
+      return e.getErrors();
     }
+  }
 
-    return updatedUser;
+  @Override
+  public Set<String> findExistingUsernames(Collection<String> usernames) {
+    Query query = new Query(Criteria.where("username").in(usernames));
+    query.fields().include("username").exclude("_id");
+    return mongoTemplate.find(query, User.class).stream()
+        .map(User::getUsername)
+        .collect(Collectors.toSet());
+  }
+
+  @Override
+  public UserBulkWriteResult updateUnordered(List<UpdateUserRequestDto> updates) {
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+    for (UpdateUserRequestDto updateRequest : updates) {
+      Update update = updateFor(updateRequest);
+      if (update == null) {
+        throw new IllegalArgumentException(
+            "No fields to update for user: " + updateRequest.getUsername());
+      }
+      bulk.updateOne(byUsername(updateRequest.getUsername()), update);
+    }
+    return execute(bulk);
+  }
+
+  @Override
+  public UserBulkWriteResult deleteUnordered(List<String> usernames) {
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+    for (String username : usernames) {
+      bulk.remove(byUsername(username));
+    }
+    return execute(bulk);
+  }
+
+  private static UserBulkWriteResult execute(BulkOperations bulk) {
+    try {
+      return result(bulk.execute(), List.of());
+    } catch (BulkOperationException e) {
+      // Unordered, so every operation not listed in the errors was applied
+      return result(e.getResult(), e.getErrors());
+    }
+  }
+
+  private static UserBulkWriteResult result(BulkWriteResult result, List<BulkWriteError> errors) {
+    return new UserBulkWriteResult(
+        result.getMatchedCount(), result.getModifiedCount(), result.getDeletedCount(), errors);
   }
-}
 
+  static Query byUsername(String username) {
+    return new Query(Criteria.where("username").is(username));
+  }
+
+  static Query listing(Document filter, UserFields fields) {
+    // The projection is precomputed and never names the password, so it is never read
+    return new BasicQuery(filter, fields.projection()).with(Sort.by(Sort.Direction.ASC, "_id"));
+  }
+}
@@ -1,35 +1,240 @@
 package org.fitznet.fitznetapi.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.annotation.Observed;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * AES-GCM for {@code /encrypt} and {@code /decrypt}. Ciphertext is a Base64 envelope:
+ *
+ * <pre>[version 1B][key id length 1B][key id][IV 12B][ciphertext + 16B tag]</pre>
+ *
+ * <p>The version and key id are authenticated along with the data. An envelope written under
+ * another key id fails with an error naming that key id.
+ *
+ * <p>Ciphers are pooled because looking up a provider costs more than encrypting a small payload.
+ * They are not kept per thread: under virtual threads each request runs on a new thread, so a
+ * thread-local cipher would be built for every request and then thrown away.
+ *
+ * <p>Data encrypted before the envelope was ECB with no header. It still decrypts, and {@code
+ * encryption.legacy.decrypts} counts how much of it is still around.
+ */
 @Service
+@Observed(name = "encryption")
 public class EncryptionService {
 
+  static final byte VERSION = 1;
+  static final int IV_LENGTH = 12;
+  static final int TAG_BITS = 128;
+
+  private static final CipherPool GCM = new CipherPool("AES/GCM/NoPadding");
+  // What Cipher.getInstance("AES") resolved to before the envelope existed
+  private static final CipherPool ECB = new CipherPool("AES/ECB/PKCS5Padding");
+  // Thread-safe, and seeding one per thread would cost more than it saves
+  private static final SecureRandom RANDOM = new SecureRandom();
+
   private final SecretKey secretKey;
+  private final byte[] header;
+  private final Timer encryptTimer;
+  private final Timer decryptTimer;
+  private final Counter legacyDecrypts;
 
-  public EncryptionService(@Value("${encryption.key}") String base64EncodedKey) {
+  @Autowired
+  public EncryptionService(
+      @Value("${encryption.key}") String base64EncodedKey,
+      @Value("${encryption.key-id:primary}") String keyId,
+      MeterRegistry meterRegistry) {
     // Decode key
     byte[] decodedKey = Base64.getDecoder().decode(base64EncodedKey);
     this.secretKey = new SecretKeySpec(decodedKey, 0, decodedKey.length, "AES");
+    this.header = header(keyId);
+    this.encryptTimer = cipherTimer(meterRegistry, "encrypt");
+    this.decryptTimer = cipherTimer(meterRegistry, "decrypt");
+    this.legacyDecrypts =
+        Counter.builder("encryption.legacy.decrypts")
+            .description("Ciphertexts decrypted from the pre-envelope ECB format")
+            .register(meterRegistry);
+  }
+
+  private static byte[] header(String keyId) {
+    byte[] id = keyId.getBytes(StandardCharsets.UTF_8);
+    if (id.length == 0 || id.length > 255 || !isPrintableAscii(id, 0, id.length)) {
+      throw new IllegalArgumentException(
+          "encryption.key-id must be 1 to 255 printable ASCII characters: " + keyId);
+    }
+    byte[] header = new byte[2 + id.length];
+    header[0] = VERSION;
+    header[1] = (byte) id.length;
+    System.arraycopy(id, 0, header, 2, id.length);
+    return header;
+  }
+
+  private static Timer cipherTimer(MeterRegistry meterRegistry, String operation) {
+    return Timer.builder("encryption.aes")
+        .description("Time spent in the AES cipher, including Base64 coding")
+        .tag("operation", operation)
+        .register(meterRegistry);
   }
 
   public String encrypt(String data) throws Exception {
-    Cipher cipher = Cipher.getInstance("AES");
-    cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-    byte[] encryptedBytes = cipher.doFinal(data.getBytes());
-    return Base64.getEncoder().encodeToString(encryptedBytes);
+    long start = System.nanoTime();
+    try {
+      byte[] plaintext = data.getBytes(StandardCharsets.UTF_8);
+      // Sized up front so the cipher writes straight into the envelope
+      byte[] envelope = new byte[header.length + IV_LENGTH + plaintext.length + TAG_BITS / 8];
+      System.arraycopy(header, 0, envelope, 0, header.length);
+      byte[] iv = new byte[IV_LENGTH];
+      RANDOM.nextBytes(iv);
+      System.arraycopy(iv, 0, envelope, header.length, IV_LENGTH);
+      Cipher cipher = GCM.acquire();
+      try {
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(header);
+        cipher.doFinal(plaintext, 0, plaintext.length, envelope, header.length + IV_LENGTH);
+      } finally {
+        GCM.release(cipher);
+      }
+      return Base64.getEncoder().encodeToString(envelope);
+    } finally {
+      encryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
   }
 
   public String decrypt(String encryptedData) throws Exception {
-    Cipher cipher = Cipher.getInstance("AES");
-    cipher.init(Cipher.DECRYPT_MODE, secretKey);
-    byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
-    byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-    return new String(decryptedBytes);
+    long start = System.nanoTime();
+    try {
+      byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
+      byte[] decryptedBytes =
+          isEnvelope(decodedBytes) ? decryptEnvelope(decodedBytes) : decryptOther(decodedBytes);
+      return new String(decryptedBytes, StandardCharsets.UTF_8);
+    } finally {
+      decryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Whether {@code data} starts with this service's header. Legacy ciphertext is random-looking, so
+   * it matches by chance with odds of 2^-8 per header byte, 2^-72 with the default key id.
+   */
+  private boolean isEnvelope(byte[] data) {
+    return data.length >= header.length + IV_LENGTH + TAG_BITS / 8
+        && Arrays.equals(data, 0, header.length, header, 0, header.length);
+  }
+
+  /**
+   * Legacy ECB, or an envelope under another key id, e.g. from a node whose key has since been
+   * rotated. Legacy ciphertext is random bytes and can look like such an envelope, so ECB is tried
+   * first and the key id is only reported once it fails. A foreign envelope gets through ECB only
+   * if its length is a whole number of blocks and its last block happens to decrypt to valid
+   * padding, odds of about 2^-12.
+   */
+  private byte[] decryptOther(byte[] data) throws GeneralSecurityException {
+    try {
+      return decryptLegacy(data);
+    } catch (GeneralSecurityException e) {
+      if (!isForeignEnvelope(data)) {
+        throw e;
+      }
+      String keyId = new String(data, 2, data[1] & 0xff, StandardCharsets.US_ASCII);
+      throw new GeneralSecurityException(
+          "Ciphertext was encrypted under unknown key id " + keyId, e);
+    }
+  }
+
+  /** Whether {@code data} parses as an envelope header with a printable ASCII key id. */
+  private static boolean isForeignEnvelope(byte[] data) {
+    if (data.length < 2 || data[0] != VERSION) {
+      return false;
+    }
+    int idLength = data[1] & 0xff;
+    return idLength > 0
+        && data.length >= 2 + idLength + IV_LENGTH + TAG_BITS / 8
+        && isPrintableAscii(data, 2, 2 + idLength);
+  }
+
+  private static boolean isPrintableAscii(byte[] bytes, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] < 0x20 || bytes[i] > 0x7e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private byte[] decryptEnvelope(byte[] envelope) throws GeneralSecurityException {
+    Cipher cipher = GCM.acquire();
+    try {
+      cipher.init(
+          Cipher.DECRYPT_MODE,
+          secretKey,
+          new GCMParameterSpec(TAG_BITS, envelope, header.length, IV_LENGTH));
+      cipher.updateAAD(envelope, 0, header.length);
+      int offset = header.length + IV_LENGTH;
+      return cipher.doFinal(envelope, offset, envelope.length - offset);
+    } finally {
+      GCM.release(cipher);
+    }
+  }
+
+  private byte[] decryptLegacy(byte[] ciphertext) throws GeneralSecurityException {
+    Cipher cipher = ECB.acquire();
+    byte[] plaintext;
+    try {
+      cipher.init(Cipher.DECRYPT_MODE, secretKey);
+      plaintext = cipher.doFinal(ciphertext);
+    } finally {
+      ECB.release(cipher);
+    }
+    legacyDecrypts.increment();
+    return plaintext;
+  }
+
+  /**
+   * Idle ciphers for one transformation, at most one per core since no more can be in use at once
+   * on platform threads. When all are taken, e.g. by virtual threads, a new one is built and
+   * dropped afterwards if the pool is full. Every use starts with {@code init}, which resets
+   * whatever state the last user left behind.
+   */
+  private static final class CipherPool {
+
+    private final String transformation;
+    private final BlockingQueue<Cipher> idle =
+        new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    CipherPool(String transformation) {
+      this.transformation = transformation;
+    }
+
+    Cipher acquire() {
+      Cipher cipher = idle.poll();
+      if (cipher != null) {
+        return cipher;
+      }
+      try {
+        return Cipher.getInstance(transformation);
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(transformation + " not available", e);
+      }
+    }
+
+    void release(Cipher cipher) {
+      idle.offer(cipher);
+    }
   }
 }
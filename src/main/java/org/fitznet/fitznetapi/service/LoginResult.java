@@ -0,0 +1,33 @@
+package org.fitznet.fitznetapi.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.fitznet.fitznetapi.model.User;
+
+/** Outcome of {@link UserService#authenticate}. {@code user} is only set when authenticated. */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class LoginResult {
+
+  public enum Status {
+    AUTHENTICATED,
+    UNKNOWN_USER,
+    BAD_PASSWORD
+  }
+
+  Status status;
+  User user;
+
+  public static LoginResult authenticated(User user) {
+    return new LoginResult(Status.AUTHENTICATED, user);
+  }
+
+  public static LoginResult failed(Status status) {
+    return new LoginResult(status, null);
+  }
+
+  public boolean isAuthenticated() {
+    return status == Status.AUTHENTICATED;
+  }
+}
@@ -0,0 +1,206 @@
+package org.fitznet.fitznetapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs BCrypt on its own fixed-size pool so a login burst can only ever occupy these threads, never
+ * the Tomcat workers that serve everything else. The queue is bounded: once it is full, callers get
+ * an immediate 503 instead of waiting behind work that would time out anyway.
+ *
+ * <p>The pool stays on platform threads when virtual threads are enabled. A virtual thread running
+ * BCrypt never yields, so it would hold one of the few carrier threads for the whole hash and
+ * starve the I/O-bound requests scheduled on it.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+  private static final long BATCH_RETRY_DELAY_MS = 50;
+
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final int threads;
+  private final Timer waitTimer;
+  private final Timer workTimer;
+  private final Counter rejectedCounter;
+  private final Counter skippedCounter;
+  private final ObservationRegistry observationRegistry;
+
+  public PasswordHashingService(
+      PasswordEncoder passwordEncoder,
+      @Value("${password.hashing.pool-size:0}") int poolSize,
+      @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+      MeterRegistry meterRegistry,
+      ObservationRegistry observationRegistry) {
+    this.passwordEncoder = passwordEncoder;
+    this.observationRegistry = observationRegistry;
+    // BCrypt is pure CPU, so more threads than cores only adds context switching
+    this.threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new HashingThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size())
+        .description("Password hashing tasks waiting for a thread")
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Password hashing tasks currently running")
+        .register(meterRegistry);
+    this.waitTimer =
+        Timer.builder("password.hashing.wait")
+            .description("Time a password hashing task spent queued")
+            .register(meterRegistry);
+    this.workTimer =
+        Timer.builder("password.hashing.duration")
+            .description("Time spent hashing or verifying a password")
+            .register(meterRegistry);
+    this.rejectedCounter =
+        Counter.builder("password.hashing.rejected")
+            .description("Password hashing tasks rejected because the queue was full")
+            .register(meterRegistry);
+    this.skippedCounter =
+        Counter.builder("password.hashing.skipped")
+            .description("Best-effort hashes, such as rehashes, dropped because the queue was full")
+            .register(meterRegistry);
+
+    log.info("Password hashing pool threads={} queueCapacity={}", threads, queueCapacity);
+  }
+
+  public CompletableFuture<String> encode(String rawPassword) {
+    return submit("encode", () -> passwordEncoder.encode(rawPassword));
+  }
+
+  public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+    return submit("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+  }
+
+  /**
+   * Like {@link #encode}, for work nobody is waiting on, such as rehashing after a login. When the
+   * queue is full it is dropped quietly and counted in {@code password.hashing.skipped}, not as a
+   * rejected request.
+   */
+  public CompletableFuture<String> encodeIfIdle(String rawPassword) {
+    try {
+      return schedule("encode", () -> passwordEncoder.encode(rawPassword));
+    } catch (RejectedExecutionException e) {
+      skippedCounter.increment();
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /** True if the hash was made at a lower cost than we use now. Cheap, runs inline. */
+  public boolean needsRehash(String encodedPassword) {
+    return passwordEncoder.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * Hashes a batch for bulk work on all pool threads, blocking until every hash is done. At most
+   * one batch task per thread is outstanding at a time, so a login arriving mid-batch waits behind
+   * one hash per thread rather than the whole batch. A full queue is waited out, not rejected.
+   */
+  public List<String> encodeBatch(List<String> rawPasswords) throws InterruptedException {
+    Semaphore inFlight = new Semaphore(threads);
+    List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+    for (String rawPassword : rawPasswords) {
+      inFlight.acquire();
+      CompletableFuture<String> hash =
+          scheduleWhenAccepted("encode", () -> passwordEncoder.encode(rawPassword));
+      hash.whenComplete((result, e) -> inFlight.release());
+      hashes.add(hash);
+    }
+    List<String> encoded = new ArrayList<>(hashes.size());
+    for (CompletableFuture<String> hash : hashes) {
+      encoded.add(hash.join());
+    }
+    return encoded;
+  }
+
+  private <T> CompletableFuture<T> scheduleWhenAccepted(String operation, Supplier<T> task)
+      throws InterruptedException {
+    while (true) {
+      if (executor.isShutdown()) {
+        throw new IllegalStateException("Password hashing pool is shut down");
+      }
+      try {
+        return schedule(operation, task);
+      } catch (RejectedExecutionException e) {
+        // Logins filled the queue; they are latency sensitive, the batch is not
+        Thread.sleep(BATCH_RETRY_DELAY_MS);
+      }
+    }
+  }
+
+  private <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+    try {
+      return schedule(operation, task);
+    } catch (RejectedExecutionException e) {
+      rejectedCounter.increment();
+      log.warn("Password hashing queue full, rejecting request");
+      return CompletableFuture.failedFuture(
+          new ServiceUnavailableException("Server is busy, please try again shortly"));
+    }
+  }
+
+  /**
+   * Each hash is its own span under the caller's, so a trace shows the time queued as the gap
+   * before it.
+   */
+  private <T> CompletableFuture<T> schedule(String operation, Supplier<T> task) {
+    long enqueuedAt = System.nanoTime();
+    Observation parent = observationRegistry.getCurrentObservation();
+    return CompletableFuture.supplyAsync(
+        () -> {
+          waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+          return Observation.createNotStarted("password.hashing.task", observationRegistry)
+              .contextualName("bcrypt " + operation)
+              .lowCardinalityKeyValue("operation", operation)
+              .parentObservation(parent)
+              .observe(() -> workTimer.record(task));
+        },
+        executor);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  private static final class HashingThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
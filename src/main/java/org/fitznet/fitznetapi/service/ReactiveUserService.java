@@ -0,0 +1,224 @@
+package org.fitznet.fitznetapi.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.UserPageDto;
+import org.fitznet.fitznetapi.exception.NotFoundException;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.ReactiveUserRepository;
+import org.fitznet.fitznetapi.repository.UserFields;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link UserService} for the {@code reactive} profile. Mongo is reached through the reactive
+ * driver, BCrypt still runs on the bounded {@link PasswordHashingService} pool, and the remaining
+ * blocking calls (the change broadcast and token revocation) are moved off the event loop.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveUserService {
+
+  final ReactiveUserRepository reactiveUserRepository;
+  final PasswordHashingService passwordHashingService;
+  final UserExistenceFilter userExistenceFilter;
+  final UserCache userCache;
+  final UserChangeBroadcaster userChangeBroadcaster;
+  final TokenRevocationService tokenRevocationService;
+  final DistributionSummary loginRoundTrips;
+
+  @Autowired
+  public ReactiveUserService(
+      ReactiveUserRepository reactiveUserRepository,
+      PasswordHashingService passwordHashingService,
+      UserExistenceFilter userExistenceFilter,
+      UserCache userCache,
+      UserChangeBroadcaster userChangeBroadcaster,
+      TokenRevocationService tokenRevocationService,
+      MeterRegistry meterRegistry) {
+    this.reactiveUserRepository = reactiveUserRepository;
+    this.passwordHashingService = passwordHashingService;
+    this.userExistenceFilter = userExistenceFilter;
+    this.userCache = userCache;
+    this.userChangeBroadcaster = userChangeBroadcaster;
+    this.tokenRevocationService = tokenRevocationService;
+    this.loginRoundTrips =
+        DistributionSummary.builder("login.db.round.trips")
+            .description("Mongo queries made to answer a single login request")
+            .register(meterRegistry);
+  }
+
+  public Mono<User> saveUser(User user) {
+    log.info("Saving user... - {}", user.getUsername());
+    return Mono.fromFuture(() -> passwordHashingService.encode(user.getPassword()))
+        .flatMap(
+            hashedPassword -> {
+              user.setPassword(hashedPassword);
+              user.setUpdatedAt(Instant.now());
+              // The unique indexes decide, so two concurrent signups can't both succeed
+              return reactiveUserRepository.insert(user);
+            })
+        .onErrorMap(DuplicateKeyException.class, UserService::conflict)
+        .flatMap(
+            saved -> {
+              userExistenceFilter.add(saved);
+              return publish(
+                      List.of(saved.getUsername()), Collections.singletonList(saved.getEmail()))
+                  .thenReturn(saved);
+            });
+  }
+
+  /** Errors with 404 if there was no such user. */
+  public Mono<Void> deleteUser(String username) {
+    log.info("Deleting user - {}", username);
+    if (!userExistenceFilter.mightContainUsername(username)) {
+      return Mono.error(notFound());
+    }
+    return reactiveUserRepository
+        .deleteByUsername(username)
+        .flatMap(
+            deleted -> {
+              if (deleted == 0) {
+                return Mono.error(notFound());
+              }
+              userCache.invalidate(List.of(username));
+              return publish(List.of(username), List.of());
+            });
+  }
+
+  /** Just the requested fields of the user; served from the shared cache when possible. */
+  public Mono<User> readByUsername(String username, UserFields fields) {
+    User cached = userCache.getIfPresent(username);
+    if (cached != null) {
+      return Mono.just(fields.restrict(cached));
+    }
+    return reactiveUserRepository
+        .findProfileByUsername(username)
+        .doOnNext(userCache::put)
+        .map(fields::restrict);
+  }
+
+  /** The updated user, or empty if there was no such user or nothing to change. */
+  public Mono<User> updateUser(UpdateUserRequestDto updateRequest) {
+    log.info("Updating user: {}", updateRequest.getUsername());
+    Mono<UpdateUserRequestDto> hashed =
+        updateRequest.getUpdatedPassword() == null
+            ? Mono.just(updateRequest)
+            : Mono.fromFuture(
+                    () -> passwordHashingService.encode(updateRequest.getUpdatedPassword()))
+                .map(
+                    hashedPassword ->
+                        new UpdateUserRequestDto(
+                            updateRequest.getUsername(),
+                            updateRequest.getUpdatedUsername(),
+                            updateRequest.getEmail(),
+                            updateRequest.getUpdatedEmail(),
+                            hashedPassword));
+    return hashed
+        .flatMap(reactiveUserRepository::findAndModifyUser)
+        .onErrorMap(DuplicateKeyException.class, UserService::conflict)
+        .flatMap(
+            updatedUser -> {
+              // Covers renames: drop the old name and anything cached under the new one
+              List<String> usernames =
+                  List.of(updateRequest.getUsername(), updatedUser.getUsername());
+              userCache.invalidate(usernames);
+              userExistenceFilter.add(updatedUser);
+              return publish(usernames, Collections.singletonList(updatedUser.getEmail()))
+                  .thenReturn(updatedUser);
+            });
+  }
+
+  /** Same single projected query and Bloom filter short-cut as {@link UserService#authenticate}. */
+  public Mono<LoginResult> authenticate(String username, String rawPassword) {
+    log.info("Authenticating user: {}", username);
+    if (!userExistenceFilter.mightContainUsername(username)) {
+      loginRoundTrips.record(0);
+      return Mono.just(LoginResult.failed(LoginResult.Status.UNKNOWN_USER));
+    }
+    return reactiveUserRepository
+        .findCredentialsByUsername(username)
+        .doOnSuccess(ignored -> loginRoundTrips.record(1))
+        .flatMap(user -> verify(user, rawPassword))
+        .switchIfEmpty(
+            Mono.fromSupplier(
+                () -> {
+                  log.warn("User not found: {}", username);
+                  return LoginResult.failed(LoginResult.Status.UNKNOWN_USER);
+                }));
+  }
+
+  private Mono<LoginResult> verify(User user, String rawPassword) {
+    String storedHash = user.getPassword();
+    return Mono.fromFuture(() -> passwordHashingService.matches(rawPassword, storedHash))
+        .map(
+            matches -> {
+              if (!matches) {
+                return LoginResult.failed(LoginResult.Status.BAD_PASSWORD);
+              }
+              if (passwordHashingService.needsRehash(storedHash)) {
+                rehash(user.getUsername(), rawPassword, storedHash);
+              }
+              return LoginResult.authenticated(user);
+            });
+  }
+
+  /**
+   * Fire and forget, as in {@link UserService}, and skipped when the hashing pool is busy; the
+   * next login retries if this fails.
+   */
+  private void rehash(String username, String rawPassword, String storedHash) {
+    Mono.fromFuture(() -> passwordHashingService.encodeIfIdle(rawPassword))
+        .flatMap(
+            newHash -> reactiveUserRepository.replacePasswordHash(username, storedHash, newHash))
+        .subscribe(
+            replaced -> {
+              if (replaced) {
+                log.info("Rehashed password for user {} at the current cost", username);
+              }
+            },
+            e -> log.debug("Skipped password rehash for user {}: {}", username, e.getMessage()));
+  }
+
+  /** See {@link UserService#findPage}. */
+  public Mono<UserPageDto> findPage(String after, int limit, UserFields fields) {
+    return reactiveUserRepository
+        .findPageAfter(UserService.parsePageToken(after), limit + 1, fields.withId())
+        .collectList()
+        .map(users -> UserService.toPage(users, limit, fields));
+  }
+
+  /** Every user, holding only {@code fields}, pulled from one cursor as the client reads. */
+  public Flux<User> streamAll(UserFields fields) {
+    return reactiveUserRepository.streamAll(fields);
+  }
+
+  /** Revokes the token on a thread that may block, since revocation is a Mongo write. */
+  public Mono<Void> revoke(VerifiedToken token) {
+    return Mono.<Void>fromRunnable(() -> tokenRevocationService.revoke(token))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  /** The broadcaster writes with the blocking driver, so it must not run on the event loop. */
+  private Mono<Void> publish(List<String> usernames, List<String> emails) {
+    return Mono.<Void>fromRunnable(() -> userChangeBroadcaster.publish(usernames, emails))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private static NotFoundException notFound() {
+    return new NotFoundException("User not found in db");
+  }
+}
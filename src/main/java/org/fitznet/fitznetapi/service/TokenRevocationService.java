@@ -0,0 +1,166 @@
+package org.fitznet.fitznetapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.model.RevokedToken;
+import org.fitznet.fitznetapi.repository.RevokedTokenRepository;
+import org.fitznet.fitznetapi.util.BloomFilter;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks logged-out tokens by {@code jti}. Every node keeps a Bloom filter of all live revocations
+ * plus an exact map of the ones it has seen recently, so the common "not revoked" answer never
+ * touches Mongo. Only Bloom filter hits that are not in the exact map fall through to a lookup.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+  // Revocations written on other nodes can carry a slightly different clock
+  private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(30);
+
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final MongoTemplate mongoTemplate;
+  private final long expectedRevocations;
+  private final double falsePositiveRate;
+
+  private final Map<String, Instant> recentRevocations = new ConcurrentHashMap<>();
+  // Bloom filter hits that Mongo said were not revoked, so a colliding token isn't looked up
+  // on every request. Cleared for any jti that later gets revoked.
+  private final Cache<String, Boolean> knownFalsePositives =
+      Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofHours(1)).build();
+
+  private volatile BloomFilter revokedIds;
+  private volatile Instant refreshedUpTo = Instant.EPOCH;
+
+  @Autowired
+  public TokenRevocationService(
+      RevokedTokenRepository revokedTokenRepository,
+      MongoTemplate mongoTemplate,
+      @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+      @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.expectedRevocations = expectedRevocations;
+    this.falsePositiveRate = falsePositiveRate;
+    this.revokedIds = BloomFilter.create(expectedRevocations, falsePositiveRate);
+  }
+
+  @PostConstruct
+  void init() {
+    try {
+      IndexOperations indexOps = mongoTemplate.indexOps(RevokedToken.class);
+      // TTL index: Mongo drops each entry once the token it revokes has expired
+      indexOps.ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+      indexOps.ensureIndex(new Index().on("revokedAt", Sort.Direction.ASC));
+      rebuild();
+    } catch (DataAccessException e) {
+      // The first refresh starts from the epoch, so it will load everything we missed here
+      log.warn("Could not load revoked tokens at startup: {}", e.getMessage());
+    }
+  }
+
+  public void revoke(VerifiedToken token) {
+    Instant now = Instant.now();
+    revokedTokenRepository.save(
+        RevokedToken.builder()
+            .id(token.getTokenId())
+            .expiresAt(token.getExpiresAt())
+            .revokedAt(now)
+            .build());
+    remember(token.getTokenId(), token.getExpiresAt());
+    log.info("Revoked token {} for user {}", token.getTokenId(), token.getSubject());
+  }
+
+  public boolean isRevoked(VerifiedToken token) {
+    if (!mightBeRevoked(token)) {
+      return false;
+    }
+    String tokenId = token.getTokenId();
+    if (recentRevocations.containsKey(tokenId)) {
+      return true;
+    }
+    if (knownFalsePositives.getIfPresent(tokenId) != null) {
+      return false;
+    }
+    boolean revoked = revokedTokenRepository.existsById(tokenId);
+    if (revoked) {
+      recentRevocations.put(tokenId, token.getExpiresAt());
+    } else {
+      knownFalsePositives.put(tokenId, Boolean.TRUE);
+    }
+    return revoked;
+  }
+
+  /**
+   * False means {@link #isRevoked} would answer false without touching Mongo. Callers that must
+   * not block, such as the reactive filter, only hand the rest off to a blocking-friendly thread.
+   */
+  public boolean mightBeRevoked(VerifiedToken token) {
+    String tokenId = token.getTokenId();
+    // Tokens minted before jti was added can't be revoked individually
+    return tokenId != null && revokedIds.mightContain(tokenId);
+  }
+
+  /** Pulls revocations made on other nodes since the last refresh. */
+  @Scheduled(
+      fixedDelayString = "${jwt.revocation.refresh-interval-ms:5000}",
+      initialDelayString = "${jwt.revocation.refresh-interval-ms:5000}")
+  public void refresh() {
+    Instant startedAt = Instant.now();
+    for (RevokedToken revoked :
+        revokedTokenRepository.findByRevokedAtAfter(refreshedUpTo.minus(REFRESH_OVERLAP))) {
+      remember(revoked.getId(), revoked.getExpiresAt());
+    }
+    refreshedUpTo = startedAt;
+    recentRevocations.values().removeIf(expiresAt -> expiresAt.isBefore(startedAt));
+  }
+
+  /**
+   * Replaces the Bloom filter with one built from the live revocations in Mongo. Bloom filters
+   * can't forget, so this is what drops entries Mongo has expired.
+   */
+  @Scheduled(
+      fixedDelayString = "${jwt.revocation.rebuild-interval-ms:3600000}",
+      initialDelayString = "${jwt.revocation.rebuild-interval-ms:3600000}")
+  public void rebuild() {
+    Instant startedAt = Instant.now();
+    long live = revokedTokenRepository.count();
+    BloomFilter rebuilt =
+        BloomFilter.create(Math.max(expectedRevocations, live * 2), falsePositiveRate);
+    try (Stream<RevokedToken> stream = revokedTokenRepository.streamByExpiresAtAfter(startedAt)) {
+      stream.forEach(revoked -> rebuilt.put(revoked.getId()));
+    }
+    synchronized (this) {
+      // Anything revoked while we were streaming must survive the swap
+      recentRevocations.keySet().forEach(rebuilt::put);
+      revokedIds = rebuilt;
+      if (refreshedUpTo.equals(Instant.EPOCH)) {
+        refreshedUpTo = startedAt;
+      }
+    }
+    log.info("Rebuilt revoked token filter with {} entries", rebuilt.approximateCount());
+  }
+
+  private synchronized void remember(String tokenId, Instant expiresAt) {
+    recentRevocations.put(tokenId, expiresAt);
+    revokedIds.put(tokenId);
+    knownFalsePositives.invalidate(tokenId);
+  }
+}
@@ -0,0 +1,259 @@
+package org.fitznet.fitznetapi.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.BatchItemResultDto;
+import org.fitznet.fitznetapi.dto.responses.BatchResultDto;
+import org.fitznet.fitznetapi.exception.ServiceUnavailableException;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.UserBulkWriteResult;
+import org.fitznet.fitznetapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Batch updates and deletes for account maintenance jobs. A batch of any size costs two round
+ * trips: one {@code $in} query to learn which users exist, then one unordered bulk write for those
+ * that do. Mongo only reports totals for a bulk write, so the per-item results come from the
+ * first query plus the per-operation errors of the second, and leave out how many were modified.
+ * An item that went through has no error and no {@code modified}.
+ */
+@Slf4j
+@Service
+public class UserBatchService {
+
+  private final UserRepository userRepository;
+  private final PasswordHashingService passwordHashingService;
+  private final UserExistenceFilter userExistenceFilter;
+  private final UserCache userCache;
+  private final UserChangeBroadcaster userChangeBroadcaster;
+
+  @Autowired
+  public UserBatchService(
+      UserRepository userRepository,
+      PasswordHashingService passwordHashingService,
+      UserExistenceFilter userExistenceFilter,
+      UserCache userCache,
+      UserChangeBroadcaster userChangeBroadcaster) {
+    this.userRepository = userRepository;
+    this.passwordHashingService = passwordHashingService;
+    this.userExistenceFilter = userExistenceFilter;
+    this.userCache = userCache;
+    this.userChangeBroadcaster = userChangeBroadcaster;
+  }
+
+  public BatchResultDto updateUsers(List<UpdateUserRequestDto> updates) {
+    log.info("Batch updating {} users", updates.size());
+    BatchItemResultDto[] items = new BatchItemResultDto[updates.size()];
+    List<Integer> candidates = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < updates.size(); i++) {
+      UpdateUserRequestDto update = updates.get(i);
+      String error = validate(update, seen);
+      if (error == null && !changesAnything(update)) {
+        error = "No fields to update";
+      }
+      if (error != null) {
+        items[i] = new BatchItemResultDto(update.getUsername(), 0, 0, error);
+      } else {
+        candidates.add(i);
+      }
+    }
+
+    List<Integer> writes = existingOnly(candidates, i -> updates.get(i).getUsername(), items);
+    List<UpdateUserRequestDto> hashed =
+        withHashedPasswords(writes.stream().map(updates::get).toList());
+    UserBulkWriteResult result =
+        hashed.isEmpty() ? UserBulkWriteResult.EMPTY : userRepository.updateUnordered(hashed);
+
+    Map<Integer, BulkWriteError> errors = byIndex(result.getErrors());
+    List<String> usernames = new ArrayList<>();
+    List<String> emails = new ArrayList<>();
+    for (int w = 0; w < writes.size(); w++) {
+      UpdateUserRequestDto update = updates.get(writes.get(w));
+      BulkWriteError error = errors.get(w);
+      if (error != null) {
+        items[writes.get(w)] = new BatchItemResultDto(update.getUsername(), 1, 0, describe(error));
+        continue;
+      }
+      items[writes.get(w)] = new BatchItemResultDto(update.getUsername(), 1, null, null);
+      // Covers renames, as for single updates: drop the old name and anything under the new one
+      usernames.add(update.getUsername());
+      if (update.getUpdatedUsername() != null) {
+        usernames.add(update.getUpdatedUsername());
+        userExistenceFilter.add(User.builder().username(update.getUpdatedUsername()).build());
+      }
+      emails.add(update.getUpdatedEmail());
+    }
+    announce(usernames, emails);
+    return new BatchResultDto(
+        result.getMatchedCount(), result.getModifiedCount(), Arrays.asList(items));
+  }
+
+  public BatchResultDto deleteUsers(List<String> usernames) {
+    log.info("Batch deleting {} users", usernames.size());
+    BatchItemResultDto[] items = new BatchItemResultDto[usernames.size()];
+    List<Integer> candidates = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < usernames.size(); i++) {
+      String error = validate(usernames.get(i), seen);
+      if (error != null) {
+        items[i] = new BatchItemResultDto(usernames.get(i), 0, 0, error);
+      } else {
+        candidates.add(i);
+      }
+    }
+
+    List<Integer> writes = existingOnly(candidates, usernames::get, items);
+    List<String> targets = writes.stream().map(usernames::get).toList();
+    UserBulkWriteResult result =
+        targets.isEmpty() ? UserBulkWriteResult.EMPTY : userRepository.deleteUnordered(targets);
+
+    Map<Integer, BulkWriteError> errors = byIndex(result.getErrors());
+    List<String> deleted = new ArrayList<>();
+    for (int w = 0; w < writes.size(); w++) {
+      String username = targets.get(w);
+      BulkWriteError error = errors.get(w);
+      if (error != null) {
+        items[writes.get(w)] = new BatchItemResultDto(username, 1, 0, describe(error));
+      } else {
+        items[writes.get(w)] = new BatchItemResultDto(username, 1, null, null);
+        deleted.add(username);
+      }
+    }
+    announce(deleted, List.of());
+    return new BatchResultDto(
+        result.getMatchedCount(), result.getDeletedCount(), Arrays.asList(items));
+  }
+
+  private static String validate(String username, Set<String> seen) {
+    if (username == null || username.isBlank()) {
+      return "username must not be blank";
+    }
+    // Unordered bulk writes give no ordering between two operations on the same user
+    if (!seen.add(username)) {
+      return "Repeated in this batch";
+    }
+    return null;
+  }
+
+  /**
+   * As for deletes, but a rename also claims its new name: renaming {@code a} to {@code b} and
+   * updating {@code b} in one batch would leave the result to the order the server runs them in.
+   */
+  private static String validate(UpdateUserRequestDto update, Set<String> seen) {
+    String username = update.getUsername();
+    if (username == null || username.isBlank()) {
+      return "username must not be blank";
+    }
+    String renamedTo = update.getUpdatedUsername();
+    boolean renames = renamedTo != null && !renamedTo.equals(username);
+    if (seen.contains(username) || (renames && seen.contains(renamedTo))) {
+      return "Repeated in this batch";
+    }
+    seen.add(username);
+    if (renames) {
+      seen.add(renamedTo);
+    }
+    return null;
+  }
+
+  private static boolean changesAnything(UpdateUserRequestDto update) {
+    return update.getUpdatedUsername() != null
+        || update.getUpdatedEmail() != null
+        || update.getUpdatedPassword() != null;
+  }
+
+  /** Marks candidates whose user doesn't exist as unmatched and returns the rest, in order. */
+  private List<Integer> existingOnly(
+      List<Integer> candidates,
+      IntFunction<String> usernameAt,
+      BatchItemResultDto[] items) {
+    if (candidates.isEmpty()) {
+      return List.of();
+    }
+    Set<String> existing =
+        userRepository.findExistingUsernames(
+            candidates.stream().map(usernameAt::apply).toList());
+    List<Integer> writes = new ArrayList<>(candidates.size());
+    for (int i : candidates) {
+      String username = usernameAt.apply(i);
+      if (existing.contains(username)) {
+        writes.add(i);
+      } else {
+        items[i] = new BatchItemResultDto(username, 0, 0, "User not found");
+      }
+    }
+    return writes;
+  }
+
+  /** Copies of the updates with every new password hashed, all hashed as one batch. */
+  private List<UpdateUserRequestDto> withHashedPasswords(List<UpdateUserRequestDto> updates) {
+    List<String> passwords =
+        updates.stream()
+            .map(UpdateUserRequestDto::getUpdatedPassword)
+            .filter(Objects::nonNull)
+            .toList();
+    if (passwords.isEmpty()) {
+      return updates;
+    }
+    List<String> hashes;
+    try {
+      hashes = passwordHashingService.encodeBatch(passwords);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while hashing passwords");
+    }
+    List<UpdateUserRequestDto> hashed = new ArrayList<>(updates.size());
+    int next = 0;
+    for (UpdateUserRequestDto update : updates) {
+      if (update.getUpdatedPassword() == null) {
+        hashed.add(update);
+        continue;
+      }
+      hashed.add(
+          new UpdateUserRequestDto(
+              update.getUsername(),
+              update.getUpdatedUsername(),
+              update.getEmail(),
+              update.getUpdatedEmail(),
+              hashes.get(next++)));
+    }
+    return hashed;
+  }
+
+  private static Map<Integer, BulkWriteError> byIndex(List<BulkWriteError> errors) {
+    Map<Integer, BulkWriteError> byIndex = new HashMap<>();
+    for (BulkWriteError error : errors) {
+      byIndex.put(error.getIndex(), error);
+    }
+    return byIndex;
+  }
+
+  private static String describe(BulkWriteError error) {
+    if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+      return UserService.conflictReason(error.getDetails(), error.getMessage());
+    }
+    return error.getMessage();
+  }
+
+  private void announce(List<String> usernames, List<String> emails) {
+    if (usernames.isEmpty()) {
+      return;
+    }
+    userCache.invalidate(usernames);
+    // One event for the whole batch
+    userChangeBroadcaster.publish(usernames, emails);
+  }
+}
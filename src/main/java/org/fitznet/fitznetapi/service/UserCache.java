@@ -0,0 +1,137 @@
+package org.fitznet.fitznetapi.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded read-through cache of users by username and by email. Only users that exist are cached;
+ * "not found" always goes back to Mongo.
+ *
+ * <p>The email side maps an email to a username and resolves the user through the username side,
+ * checking the email still matches. Invalidating a username is therefore enough to drop every
+ * entry for that user, including under an email it no longer has.
+ *
+ * <p>The username side holds futures so that a miss is loaded outside the cache's own locks. A
+ * synchronous Caffeine load runs inside a {@code ConcurrentHashMap} compute, which is a
+ * {@code synchronized} block; a Mongo query there pins a virtual thread to its carrier. Concurrent
+ * misses for one user still share a single query, and an invalidation during a load still wins.
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+  private final AsyncCache<String, User> byUsername;
+  private final Cache<String, String> usernameByEmail;
+
+  public UserCache(
+      @Value("${users.cache.maximum-size:10000}") long maximumSize,
+      @Value("${users.cache.ttl:5m}") Duration ttl,
+      MeterRegistry meterRegistry) {
+    this.byUsername =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .buildAsync();
+    this.usernameByEmail =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "usersByUsername");
+    CaffeineCacheMetrics.monitor(meterRegistry, usernameByEmail, "usersByEmail");
+    log.info("User cache maximumSize={} ttl={}", maximumSize, ttl);
+  }
+
+  public User getByUsername(String username, Function<String, User> loader) {
+    CompletableFuture<User> loading = new CompletableFuture<>();
+    // Only the empty future is created under the lock; the query runs after it is released
+    CompletableFuture<User> cached = byUsername.get(username, (key, executor) -> loading);
+    if (cached != loading) {
+      return join(cached);
+    }
+    try {
+      User user = loader.apply(username);
+      // A null result removes the entry, so "not found" is never cached
+      loading.complete(user);
+      return user;
+    } catch (Throwable e) {
+      // Errors too: Caffeine never expires an incomplete future, so waiters would block forever
+      loading.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * For callers that load asynchronously and so can't hand {@link #getByUsername} a loader. A user
+   * still being loaded by someone else counts as absent.
+   */
+  public User getIfPresent(String username) {
+    return loaded(byUsername.getIfPresent(username));
+  }
+
+  public void put(User user) {
+    byUsername.put(user.getUsername(), CompletableFuture.completedFuture(user));
+  }
+
+  public User getByEmail(String email, Function<String, User> loader) {
+    String username = usernameByEmail.getIfPresent(email);
+    if (username != null) {
+      User cached = getIfPresent(username);
+      if (cached != null && email.equals(cached.getEmail())) {
+        return cached;
+      }
+      usernameByEmail.invalidate(email);
+    }
+    User user = loader.apply(email);
+    if (user != null) {
+      put(user);
+      usernameByEmail.put(email, user.getUsername());
+    }
+    return user;
+  }
+
+  public void invalidate(Collection<String> usernames) {
+    byUsername.synchronous().invalidateAll(usernames);
+  }
+
+  public void invalidateAll() {
+    byUsername.synchronous().invalidateAll();
+    usernameByEmail.invalidateAll();
+  }
+
+  private static User join(CompletableFuture<User> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      // Waiters see the same exception as the caller whose load failed
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static User loaded(CompletableFuture<User> future) {
+    if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+      return null;
+    }
+    return future.join();
+  }
+}
@@ -0,0 +1,199 @@
+package org.fitznet.fitznetapi.service;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.model.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Broadcasts user changes between API instances through a capped Mongo collection. Each node
+ * appends an event after a write and tails the collection with a tailable cursor, so the other
+ * nodes drop their cached copies within moments rather than at TTL expiry.
+ */
+@Slf4j
+@Service
+public class UserChangeBroadcaster {
+
+  private static final long RETRY_DELAY_MS = 1_000;
+  // Event ids are minted on different nodes, so reopen slightly behind the last one seen
+  private static final long CLOCK_SKEW_MS = 5_000;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private final MongoTemplate mongoTemplate;
+  private final UserCache userCache;
+  private final UserExistenceFilter userExistenceFilter;
+  private final long cappedSizeBytes;
+  private final long cappedMaxDocuments;
+
+  private volatile boolean running;
+  private volatile MongoCursor<Document> cursor;
+  private Thread listener;
+
+  @Autowired
+  public UserChangeBroadcaster(
+      MongoTemplate mongoTemplate,
+      UserCache userCache,
+      UserExistenceFilter userExistenceFilter,
+      @Value("${users.changes.capped-size-bytes:1048576}") long cappedSizeBytes,
+      @Value("${users.changes.max-documents:10000}") long cappedMaxDocuments) {
+    this.mongoTemplate = mongoTemplate;
+    this.userCache = userCache;
+    this.userExistenceFilter = userExistenceFilter;
+    this.cappedSizeBytes = cappedSizeBytes;
+    this.cappedMaxDocuments = cappedMaxDocuments;
+  }
+
+  @PostConstruct
+  void start() {
+    // Create it before anything is published, or the first insert makes an uncapped collection
+    // that can never be tailed
+    try {
+      ensureCappedCollection();
+    } catch (DataAccessException e) {
+      log.warn("Could not create user change collection at startup: {}", e.getMessage());
+    }
+    running = true;
+    listener = new Thread(this::listen, "user-change-listener");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @PreDestroy
+  void stop() {
+    running = false;
+    MongoCursor<Document> current = cursor;
+    if (current != null) {
+      current.close();
+    }
+    if (listener != null) {
+      listener.interrupt();
+    }
+  }
+
+  /**
+   * Tells the other nodes about a change this node has already applied locally. Failures are
+   * logged, not thrown: the write itself succeeded, and remote caches still expire on their TTL.
+   */
+  public void publish(List<String> usernames, List<String> emails) {
+    UserChangedEvent event =
+        UserChangedEvent.builder()
+            .usernames(usernames.stream().filter(Objects::nonNull).distinct().toList())
+            .emails(emails.stream().filter(Objects::nonNull).distinct().toList())
+            .origin(nodeId)
+            .createdAt(Instant.now())
+            .build();
+    try {
+      mongoTemplate.insert(event);
+    } catch (DataAccessException e) {
+      log.warn(
+          "Could not broadcast change for users {}: {}", event.getUsernames(), e.getMessage());
+    }
+  }
+
+  private void listen() {
+    // Nothing cached yet, so only changes from now on matter
+    ObjectId lastSeen = new ObjectId(new Date());
+    boolean failed = false;
+    while (running) {
+      try {
+        ensureCappedCollection();
+        if (failed) {
+          // Events may have rolled out of the capped collection while we were disconnected
+          userCache.invalidateAll();
+          failed = false;
+        }
+        lastSeen = tail(lastSeen);
+      } catch (RuntimeException e) {
+        failed = true;
+        if (running) {
+          log.warn("User change listener lost its cursor: {}", e.getMessage());
+        }
+      }
+      sleepBeforeRetry();
+    }
+  }
+
+  private ObjectId tail(ObjectId after) {
+    ObjectId lastSeen = after;
+    try (MongoCursor<Document> tailing =
+        mongoTemplate
+            .getCollection(mongoTemplate.getCollectionName(UserChangedEvent.class))
+            .find(Filters.gt("_id", rewind(after)))
+            .cursorType(CursorType.TailableAwait)
+            .iterator()) {
+      cursor = tailing;
+      while (running) {
+        Document document = tailing.tryNext();
+        if (document == null) {
+          // A tailable cursor on an empty collection dies straight away; reopen it
+          if (tailing.getServerCursor() == null) {
+            return lastSeen;
+          }
+          continue;
+        }
+        lastSeen = document.getObjectId("_id");
+        apply(mongoTemplate.getConverter().read(UserChangedEvent.class, document));
+      }
+    } finally {
+      cursor = null;
+    }
+    return lastSeen;
+  }
+
+  private static ObjectId rewind(ObjectId id) {
+    return new ObjectId(new Date(id.getDate().getTime() - CLOCK_SKEW_MS));
+  }
+
+  void apply(UserChangedEvent event) {
+    if (nodeId.equals(event.getOrigin())) {
+      return;
+    }
+    List<String> usernames = event.getUsernames() == null ? List.of() : event.getUsernames();
+    userCache.invalidate(usernames);
+    for (String username : usernames) {
+      userExistenceFilter.add(User.builder().username(username).build());
+    }
+    log.debug("Applied remote change for users {}", usernames);
+  }
+
+  private void ensureCappedCollection() {
+    if (mongoTemplate.collectionExists(UserChangedEvent.class)) {
+      return;
+    }
+    CollectionOptions options =
+        CollectionOptions.empty().capped().size(cappedSizeBytes).maxDocuments(cappedMaxDocuments);
+    try {
+      mongoTemplate.createCollection(UserChangedEvent.class, options);
+    } catch (DataAccessException e) {
+      // Another node created it first
+      log.debug("Capped collection not created: {}", e.getMessage());
+    }
+  }
+
+  private void sleepBeforeRetry() {
+    try {
+      Thread.sleep(RETRY_DELAY_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
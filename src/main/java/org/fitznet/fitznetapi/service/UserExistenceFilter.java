@@ -0,0 +1,168 @@
+package org.fitznet.fitznetapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.util.ScalableBloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-node Bloom filter of every username in {@code users}. A "no" is definite, so logins and
+ * lookups for names that never existed skip Mongo entirely; a "maybe" falls through to the normal
+ * query. Signups don't use it: the unique indexes settle those in the insert itself.
+ *
+ * <p>Users created or renamed on other nodes are picked up by polling {@code updatedAt}, so a
+ * brand new user can look absent here for up to one refresh interval. Deleted users stay in the
+ * filter, which is harmless, until the next rebuild.
+ */
+@Slf4j
+@Service
+public class UserExistenceFilter {
+
+  // Writes from other nodes can carry a slightly different clock
+  private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(30);
+
+  private final MongoTemplate mongoTemplate;
+  private final long expectedUsers;
+  private final double falsePositiveRate;
+
+  private volatile ScalableBloomFilter usernames;
+  // Set while a rebuild streams the collection, so writes made meanwhile reach the new filter
+  private ScalableBloomFilter pending;
+  // Until the first load succeeds every answer is "maybe", which is always safe
+  private volatile boolean ready;
+  private volatile Instant refreshedUpTo = Instant.EPOCH;
+
+  @Autowired
+  public UserExistenceFilter(
+      MongoTemplate mongoTemplate,
+      @Value("${users.bloom.expected-users:10000}") long expectedUsers,
+      @Value("${users.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+      MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.expectedUsers = expectedUsers;
+    this.falsePositiveRate = falsePositiveRate;
+    this.usernames = new ScalableBloomFilter(expectedUsers, falsePositiveRate);
+
+    registerGauges(meterRegistry, "username", f -> f.usernames);
+  }
+
+  @PostConstruct
+  void init() {
+    try {
+      mongoTemplate
+          .indexOps(User.class)
+          .ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC));
+      rebuild();
+    } catch (DataAccessException e) {
+      log.warn("Could not load user existence filter at startup: {}", e.getMessage());
+    }
+  }
+
+  public boolean mightContainUsername(String username) {
+    return !ready || usernames.mightContain(username);
+  }
+
+  /** Records a user that was just created or renamed. */
+  public synchronized void add(User user) {
+    if (user.getUsername() == null) {
+      return;
+    }
+    usernames.put(user.getUsername());
+    if (pending != null) {
+      pending.put(user.getUsername());
+    }
+  }
+
+  /** Pulls users created or updated on other nodes since the last refresh. */
+  @Scheduled(
+      fixedDelayString = "${users.bloom.refresh-interval-ms:1000}",
+      initialDelayString = "${users.bloom.refresh-interval-ms:1000}")
+  public void refresh() {
+    if (!ready) {
+      rebuild();
+      return;
+    }
+    Instant startedAt = Instant.now();
+    Query query =
+        projected(new Query(Criteria.where("updatedAt").gt(refreshedUpTo.minus(REFRESH_OVERLAP))));
+    mongoTemplate.find(query, User.class).forEach(this::add);
+    refreshedUpTo = startedAt;
+  }
+
+  /**
+   * Replaces the filter with one built by streaming the collection. Bloom filters can't forget, so
+   * this is what drops deleted users and old names.
+   */
+  @Scheduled(
+      fixedDelayString = "${users.bloom.rebuild-interval-ms:21600000}",
+      initialDelayString = "${users.bloom.rebuild-interval-ms:21600000}")
+  public void rebuild() {
+    Instant startedAt = Instant.now();
+    long users = mongoTemplate.estimatedCount(User.class);
+    ScalableBloomFilter rebuilt =
+        new ScalableBloomFilter(Math.max(expectedUsers, users * 2), falsePositiveRate);
+    synchronized (this) {
+      pending = rebuilt;
+    }
+    try (Stream<User> stream = mongoTemplate.stream(projected(new Query()), User.class)) {
+      stream.map(User::getUsername).filter(Objects::nonNull).forEach(rebuilt::put);
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        pending = null;
+      }
+      throw e;
+    }
+    synchronized (this) {
+      usernames = rebuilt;
+      pending = null;
+      if (!ready) {
+        refreshedUpTo = startedAt;
+        ready = true;
+      }
+    }
+    log.info(
+        "Rebuilt user existence filter with {} usernames, {} bytes",
+        rebuilt.approximateCount(),
+        rebuilt.sizeInBytes());
+  }
+
+  private static Query projected(Query query) {
+    query.fields().include("username");
+    return query;
+  }
+
+  private void registerGauges(
+      MeterRegistry meterRegistry,
+      String filter,
+      Function<UserExistenceFilter, ScalableBloomFilter> select) {
+    ToDoubleFunction<UserExistenceFilter> bytes = f -> select.apply(f).sizeInBytes();
+    ToDoubleFunction<UserExistenceFilter> entries = f -> select.apply(f).approximateCount();
+    Gauge.builder("users.bloom.memory", this, bytes)
+        .description("Memory held by the user existence Bloom filter")
+        .baseUnit("bytes")
+        .tag("filter", filter)
+        .register(meterRegistry);
+    Gauge.builder("users.bloom.entries", this, entries)
+        .description("Approximate number of values in the user existence Bloom filter")
+        .tag("filter", filter)
+        .register(meterRegistry);
+  }
+}
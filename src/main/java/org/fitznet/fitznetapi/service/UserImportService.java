@@ -0,0 +1,255 @@
+package org.fitznet.fitznetapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.dto.UserDTO;
+import org.fitznet.fitznetapi.dto.responses.ImportResultDto;
+import org.fitznet.fitznetapi.dto.responses.ImportResultDto.Status;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports users from an NDJSON stream, one {@link UserDTO}-shaped record per line. Records are
+ * read, hashed and written a batch at a time, and each batch's results are written out before the
+ * next is read, so memory depends on the batch size and never on the size of the upload.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+  // Long enough for any sane record, short enough that one huge line can't exhaust the heap
+  static final int MAX_LINE_LENGTH = 8 * 1024;
+
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final PasswordHashingService passwordHashingService;
+  private final UserRepository userRepository;
+  private final UserExistenceFilter userExistenceFilter;
+  private final UserChangeBroadcaster userChangeBroadcaster;
+  private final int batchSize;
+
+  @Autowired
+  public UserImportService(
+      ObjectMapper objectMapper,
+      Validator validator,
+      PasswordHashingService passwordHashingService,
+      UserRepository userRepository,
+      UserExistenceFilter userExistenceFilter,
+      UserChangeBroadcaster userChangeBroadcaster,
+      @Value("${users.import.batch-size:500}") int batchSize) {
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.passwordHashingService = passwordHashingService;
+    this.userRepository = userRepository;
+    this.userExistenceFilter = userExistenceFilter;
+    this.userChangeBroadcaster = userChangeBroadcaster;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Reads records from {@code in} and writes one result per non-blank line to {@code out}, in input
+   * order. Returns how many users were created.
+   */
+  public long importUsers(InputStream in, OutputStream out) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    List<Entry> batch = new ArrayList<>(batchSize);
+    long lineNumber = 0;
+    long created = 0;
+    String line;
+    while ((line = readLine(reader)) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      batch.add(parse(line, lineNumber));
+      if (batch.size() == batchSize) {
+        created += flush(batch, out);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      created += flush(batch, out);
+    }
+    log.info("Imported {} users from {} lines", created, lineNumber);
+    return created;
+  }
+
+  private Entry parse(String line, long lineNumber) {
+    if (line.length() > MAX_LINE_LENGTH) {
+      return Entry.rejected(lineNumber, null, Status.INVALID, "Record too long");
+    }
+    UserDTO user;
+    try {
+      user = objectMapper.readValue(line, UserDTO.class);
+    } catch (JsonProcessingException e) {
+      return Entry.rejected(lineNumber, null, Status.INVALID, "Malformed JSON");
+    }
+    if (user == null) {
+      return Entry.rejected(lineNumber, null, Status.INVALID, "Malformed JSON");
+    }
+    Set<ConstraintViolation<UserDTO>> violations = validator.validate(user);
+    if (!violations.isEmpty()) {
+      String message =
+          violations.stream()
+              .map(v -> v.getPropertyPath() + " " + v.getMessage())
+              .sorted()
+              .collect(Collectors.joining(", "));
+      return Entry.rejected(lineNumber, user.getUsername(), Status.INVALID, message);
+    }
+    if (user.getPassword().length() < UserDTO.MIN_PASSWORD_LENGTH) {
+      return Entry.rejected(
+          lineNumber,
+          user.getUsername(),
+          Status.INVALID,
+          "Password must be at least " + UserDTO.MIN_PASSWORD_LENGTH + " characters long");
+    }
+    return new Entry(lineNumber, user, null);
+  }
+
+  /** Hashes, inserts and reports one batch. Returns how many users were created. */
+  private long flush(List<Entry> batch, OutputStream out) throws IOException {
+    List<Entry> accepted = batch.stream().filter(entry -> entry.result == null).toList();
+    if (!accepted.isEmpty()) {
+      insert(accepted);
+    }
+    long created = 0;
+    for (Entry entry : batch) {
+      if (entry.result.getStatus() == Status.CREATED) {
+        created++;
+      }
+      out.write(objectMapper.writeValueAsBytes(entry.result));
+      out.write('\n');
+    }
+    // One flush per batch keeps the client informed without a syscall per record
+    out.flush();
+    return created;
+  }
+
+  private void insert(List<Entry> accepted) throws IOException {
+    List<String> hashes;
+    try {
+      hashes =
+          passwordHashingService.encodeBatch(
+              accepted.stream().map(entry -> entry.user.getPassword()).toList());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while hashing import batch");
+    }
+
+    Instant now = Instant.now();
+    List<User> users = new ArrayList<>(accepted.size());
+    for (int i = 0; i < accepted.size(); i++) {
+      UserDTO user = accepted.get(i).user;
+      users.add(
+          User.builder()
+              .username(user.getUsername())
+              .email(user.getEmail())
+              .password(hashes.get(i))
+              .updatedAt(now)
+              .build());
+    }
+
+    Map<Integer, BulkWriteError> errors = new HashMap<>();
+    try {
+      for (BulkWriteError error : userRepository.insertUnordered(users)) {
+        errors.put(error.getIndex(), error);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Bulk insert of {} users failed: {}", users.size(), e.getMessage());
+      for (Entry entry : accepted) {
+        entry.complete(Status.FAILED, "Could not write user");
+      }
+      return;
+    }
+
+    List<String> usernames = new ArrayList<>();
+    List<String> emails = new ArrayList<>();
+    for (int i = 0; i < accepted.size(); i++) {
+      Entry entry = accepted.get(i);
+      BulkWriteError error = errors.get(i);
+      if (error == null) {
+        entry.complete(Status.CREATED, null);
+        userExistenceFilter.add(users.get(i));
+        usernames.add(users.get(i).getUsername());
+        emails.add(users.get(i).getEmail());
+      } else if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+        entry.complete(
+            Status.DUPLICATE, UserService.conflictReason(error.getDetails(), error.getMessage()));
+      } else {
+        entry.complete(Status.FAILED, error.getMessage());
+      }
+    }
+    if (!usernames.isEmpty()) {
+      // One event per batch tells the other nodes about every new name at once
+      userChangeBroadcaster.publish(usernames, emails);
+    }
+  }
+
+  /**
+   * Reads one line, without its terminator, or null at the end of input. A line longer than
+   * {@link #MAX_LINE_LENGTH} is consumed but only its first {@code MAX_LINE_LENGTH + 1} characters
+   * are kept, enough for the caller to see it was too long.
+   */
+  static String readLine(Reader reader) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c = reader.read();
+    if (c < 0) {
+      return null;
+    }
+    while (c >= 0 && c != '\n') {
+      if (line.length() <= MAX_LINE_LENGTH) {
+        line.append((char) c);
+      }
+      c = reader.read();
+    }
+    int length = line.length();
+    if (length > 0 && length <= MAX_LINE_LENGTH && line.charAt(length - 1) == '\r') {
+      line.setLength(length - 1);
+    }
+    return line.toString();
+  }
+
+  private static final class Entry {
+    final long line;
+    final UserDTO user;
+    ImportResultDto result;
+
+    Entry(long line, UserDTO user, ImportResultDto result) {
+      this.line = line;
+      this.user = user;
+      this.result = result;
+    }
+
+    static Entry rejected(long line, String username, Status status, String message) {
+      return new Entry(line, null, new ImportResultDto(line, username, status, message));
+    }
+
+    void complete(Status status, String message) {
+      result = new ImportResultDto(line, user.getUsername(), status, message);
+    }
+  }
+}
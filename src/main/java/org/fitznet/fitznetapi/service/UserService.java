@@ -1,69 +1,300 @@
 package org.fitznet.fitznetapi.service;
 
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoWriteException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
 import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.UserPageDto;
+import org.fitznet.fitznetapi.exception.BadRequestException;
+import org.fitznet.fitznetapi.exception.ConflictException;
 import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.UserFields;
 import org.fitznet.fitznetapi.repository.UserRepository;
+import org.fitznet.fitznetapi.repository.UserRepositoryCustomImpl;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+/**
+ * Users over the blocking repository. Hashing runs on {@link PasswordHashingService}'s pool, and
+ * whatever follows a hash that touches Mongo moves to {@code ioExecutor}, so a slow database ties
+ * up those threads rather than the few that are there for BCrypt.
+ */
 @Slf4j
 @Service
+@Observed(name = "user.service")
 public class UserService {
 
+  // The first field of e.g. "dup key: { email: \"a@example.com\" }" in a duplicate key error
+  private static final Pattern DUPLICATE_KEY_FIELD = Pattern.compile("dup key: \\{ ?([\\w.]+):");
+
   final UserRepository userRepository;
-  final PasswordEncoder passwordEncoder;
+  final PasswordHashingService passwordHashingService;
+  final UserExistenceFilter userExistenceFilter;
+  final UserCache userCache;
+  final UserChangeBroadcaster userChangeBroadcaster;
+  final DistributionSummary loginRoundTrips;
+  final Executor ioExecutor;
 
   @Autowired
-  public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+  public UserService(
+      UserRepository userRepository,
+      PasswordHashingService passwordHashingService,
+      UserExistenceFilter userExistenceFilter,
+      UserCache userCache,
+      UserChangeBroadcaster userChangeBroadcaster,
+      MeterRegistry meterRegistry,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+          Executor ioExecutor) {
     this.userRepository = userRepository;
-    this.passwordEncoder = passwordEncoder;
+    this.passwordHashingService = passwordHashingService;
+    this.userExistenceFilter = userExistenceFilter;
+    this.userCache = userCache;
+    this.userChangeBroadcaster = userChangeBroadcaster;
+    this.loginRoundTrips =
+        DistributionSummary.builder("login.db.round.trips")
+            .description("Mongo queries made to answer a single login request")
+            .register(meterRegistry);
+    this.ioExecutor = ioExecutor;
   }
 
-  public User saveUser(User user) {
+  public CompletableFuture<User> saveUser(User user) {
     log.info("Saving user... - {}", user.getUsername());
     // Hash the password before saving
-    user.setPassword(passwordEncoder.encode(user.getPassword()));
-    return userRepository.save(user);
+    return passwordHashingService
+        .encode(user.getPassword())
+        .thenApplyAsync(
+            hashedPassword -> {
+              user.setPassword(hashedPassword);
+              user.setUpdatedAt(Instant.now());
+              User saved;
+              try {
+                // The unique indexes decide, so two concurrent signups can't both succeed
+                saved = userRepository.insert(user);
+              } catch (DuplicateKeyException e) {
+                throw conflict(e);
+              }
+              userExistenceFilter.add(saved);
+              userChangeBroadcaster.publish(
+                  List.of(saved.getUsername()), Collections.singletonList(saved.getEmail()));
+              return saved;
+            },
+            ioExecutor);
   }
 
   public void deleteUser(String username) {
     log.info("Deleting user - {}", username);
     userRepository.deleteByUsername(username);
+    userCache.invalidate(List.of(username));
+    userChangeBroadcaster.publish(List.of(username), List.of());
   }
 
+  /** The cached user, which never carries the password hash. */
   public User readByUsername(String username) {
-    return userRepository.findByUsername(username);
+    return userCache.getByUsername(username, userRepository::findProfileByUsername);
+  }
+
+  /** Just the requested fields of the user; served from the cache when possible. */
+  public User readByUsername(String username, UserFields fields) {
+    return fields.restrict(readByUsername(username));
+  }
+
+  public User readByEmail(String email) {
+    return userCache.getByEmail(email, userRepository::findProfileByEmail);
   }
 
-  public User updateUser(UpdateUserRequestDto updateRequest) {
+  public CompletableFuture<User> updateUser(UpdateUserRequestDto updateRequest) {
     log.info("Updating user: {}", updateRequest.getUsername());
 
-    User updatedUser = userRepository.findAndModifyUser(updateRequest);
+    if (updateRequest.getUpdatedPassword() == null) {
+      return CompletableFuture.completedFuture(applyUpdate(updateRequest));
+    }
+    return passwordHashingService
+        .encode(updateRequest.getUpdatedPassword())
+        .thenApplyAsync(
+            hashedPassword ->
+                applyUpdate(
+                    new UpdateUserRequestDto(
+                        updateRequest.getUsername(),
+                        updateRequest.getUpdatedUsername(),
+                        updateRequest.getEmail(),
+                        updateRequest.getUpdatedEmail(),
+                        hashedPassword)),
+            ioExecutor);
+  }
+
+  private User applyUpdate(UpdateUserRequestDto updateRequest) {
+    User updatedUser;
+    try {
+      updatedUser = userRepository.findAndModifyUser(updateRequest);
+    } catch (DuplicateKeyException e) {
+      throw conflict(e);
+    }
 
     if (updatedUser == null) {
       log.warn("User not found or no fields to update: {}", updateRequest.getUsername());
       return null;
     }
 
+    // Covers renames: drop the old name and anything cached under the new one
+    List<String> usernames = List.of(updateRequest.getUsername(), updatedUser.getUsername());
+    userCache.invalidate(usernames);
+    userExistenceFilter.add(updatedUser);
+    userChangeBroadcaster.publish(usernames, Collections.singletonList(updatedUser.getEmail()));
     log.info("User updated successfully: {}", updateRequest.getUsername());
     return updatedUser;
   }
 
-  public boolean verifyPassword(String username, String rawPassword) {
-    log.info("Verifying password for user: {}", username);
-    var user = userRepository.findByUsername(username);
+  /** Maps a unique index violation to the same 409s the API has always returned. */
+  static ConflictException conflict(DuplicateKeyException e) {
+    BsonDocument details = null;
+    if (e.getCause() instanceof MongoCommandException command) {
+      details = command.getResponse();
+    } else if (e.getCause() instanceof MongoWriteException write) {
+      details = write.getError().getDetails();
+    }
+    return new ConflictException(conflictReason(details, e.getMessage()));
+  }
+
+  /**
+   * Which unique value a duplicate key error was about, going by the field of the duplicate key
+   * rather than the index name, so an email index created under another name, such as Spring
+   * Data's {@code email}, is still told apart. The field comes from the {@code keyPattern} in
+   * {@code details} where Mongo reports one, as for findAndModify, and otherwise from the {@code
+   * dup key: { email: ... }} part of the message. Only old servers that write neither fall back to
+   * this repository's index name.
+   */
+  static String conflictReason(BsonDocument details, String duplicateKeyMessage) {
+    String field = null;
+    if (details != null && details.isDocument("keyPattern")) {
+      field = details.getDocument("keyPattern").getFirstKey();
+    } else if (duplicateKeyMessage != null) {
+      Matcher duplicate = DUPLICATE_KEY_FIELD.matcher(duplicateKeyMessage);
+      if (duplicate.find()) {
+        field = duplicate.group(1);
+      }
+    }
+    boolean email =
+        field != null
+            ? field.equals("email")
+            : duplicateKeyMessage != null
+                && duplicateKeyMessage.contains(UserRepositoryCustomImpl.EMAIL_INDEX);
+    return email ? "Email in use" : "User already exists";
+  }
+
+  /**
+   * Verifies a login with a single projected query. The returned user carries only id, username,
+   * email and password hash.
+   */
+  public CompletableFuture<LoginResult> authenticate(String username, String rawPassword) {
+    log.info("Authenticating user: {}", username);
+    if (!userExistenceFilter.mightContainUsername(username)) {
+      // Definitely not a user; typical of credential stuffing, so don't touch Mongo at all
+      loginRoundTrips.record(0);
+      return CompletableFuture.completedFuture(LoginResult.failed(LoginResult.Status.UNKNOWN_USER));
+    }
+    User user = userRepository.findCredentialsByUsername(username);
+    loginRoundTrips.record(1);
     if (null == user) {
       log.warn("User not found: {}", username);
-      return false;
+      return CompletableFuture.completedFuture(LoginResult.failed(LoginResult.Status.UNKNOWN_USER));
     }
-    return passwordEncoder.matches(rawPassword, user.getPassword());
+    String storedHash = user.getPassword();
+    return passwordHashingService
+        .matches(rawPassword, storedHash)
+        .thenApply(
+            matches -> {
+              if (!matches) {
+                return LoginResult.failed(LoginResult.Status.BAD_PASSWORD);
+              }
+              if (passwordHashingService.needsRehash(storedHash)) {
+                rehash(username, rawPassword, storedHash);
+              }
+              return LoginResult.authenticated(user);
+            });
+  }
+
+  /**
+   * Re-hashes at the current BCrypt cost in the background. The login response doesn't wait for
+   * it, and if it fails or the pool is busy the next successful login simply tries again.
+   */
+  private void rehash(String username, String rawPassword, String storedHash) {
+    passwordHashingService
+        .encodeIfIdle(rawPassword)
+        .thenAcceptAsync(
+            newHash -> {
+              if (userRepository.replacePasswordHash(username, storedHash, newHash)) {
+                log.info("Rehashed password for user {} at the current cost", username);
+              }
+            },
+            ioExecutor)
+        .exceptionally(
+            e -> {
+              log.debug("Skipped password rehash for user {}: {}", username, e.getMessage());
+              return null;
+            });
   }
 
   public List<User> findAll() {
     return userRepository.findAll();
   }
-}
 
+  /**
+   * One page of users in id order, holding only {@code fields}. {@code after} is the {@code next}
+   * token from the previous page, or null for the first page.
+   */
+  public UserPageDto findPage(String after, int limit, UserFields fields) {
+    // Fetch one extra to learn whether another page exists without a count query. The id is read
+    // even if not requested, since the page token is made from it.
+    List<User> users =
+        userRepository.findPageAfter(parsePageToken(after), limit + 1, fields.withId());
+    return toPage(users, limit, fields);
+  }
+
+  /** The id a {@code next} token stands for, or null for the first page. */
+  static ObjectId parsePageToken(String after) {
+    if (after == null) {
+      return null;
+    }
+    if (!ObjectId.isValid(after)) {
+      throw new BadRequestException("Invalid page token");
+    }
+    return new ObjectId(after);
+  }
+
+  /** Turns up to {@code limit + 1} users, ids included, into a page of {@code limit}. */
+  static UserPageDto toPage(List<User> users, int limit, UserFields fields) {
+    String next = null;
+    if (users.size() > limit) {
+      users = users.subList(0, limit);
+      next = users.get(limit - 1).getId();
+    }
+    if (!fields.includesId()) {
+      users = users.stream().map(fields::restrict).toList();
+    }
+    return new UserPageDto(users, next);
+  }
+
+  /**
+   * Every user, holding only {@code fields}, read lazily from one Mongo cursor. The caller must
+   * close the stream.
+   */
+  public Stream<User> streamAll(UserFields fields) {
+    return userRepository.streamAll(fields);
+  }
+}
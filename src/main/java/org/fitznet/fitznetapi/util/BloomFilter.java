@@ -0,0 +1,188 @@
+package org.fitznet.fitznetapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, fixed-size Bloom filter over strings. {@link #mightContain} never returns a false
+ * negative; false positives occur at roughly the rate the filter was sized for until more than the
+ * expected number of values have been added. Values cannot be removed, so callers rebuild it when
+ * the underlying set shrinks.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitSize;
+  private final int numHashFunctions;
+  private final AtomicLong approximateCount = new AtomicLong();
+
+  private BloomFilter(long bitSize, int numHashFunctions) {
+    int words = Math.toIntExact((bitSize + 63) >>> 6);
+    this.bits = new AtomicLongArray(words);
+    this.bitSize = (long) words << 6;
+    this.numHashFunctions = numHashFunctions;
+  }
+
+  /** Sizes the filter so that {@code expectedInsertions} values give about {@code fpp} errors. */
+  public static BloomFilter create(long expectedInsertions, double fpp) {
+    if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException(
+          "expectedInsertions must be > 0 and fpp in (0, 1), got "
+              + expectedInsertions
+              + ", "
+              + fpp);
+    }
+    double ln2 = Math.log(2);
+    long bitSize = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (ln2 * ln2));
+    int numHashFunctions =
+        Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * ln2));
+    bitSize = Math.max(64, bitSize);
+    return new BloomFilter(bitSize, numHashFunctions);
+  }
+
+  public void put(String value) {
+    long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+    boolean changed = false;
+    long combined = hash[0];
+    for (int i = 0; i < numHashFunctions; i++) {
+      long index = (combined & Long.MAX_VALUE) % bitSize;
+      long mask = 1L << index;
+      long previous = bits.getAndAccumulate((int) (index >>> 6), mask, (a, b) -> a | b);
+      changed |= (previous & mask) == 0;
+      combined += hash[1];
+    }
+    if (changed) {
+      approximateCount.incrementAndGet();
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long[] hash = murmur3(value.getBytes(StandardCharsets.UTF_8));
+    long combined = hash[0];
+    for (int i = 0; i < numHashFunctions; i++) {
+      long index = (combined & Long.MAX_VALUE) % bitSize;
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+      combined += hash[1];
+    }
+    return true;
+  }
+
+  /** Number of distinct values added, give or take the occasional collision. */
+  public long approximateCount() {
+    return approximateCount.get();
+  }
+
+  public long bitSize() {
+    return bitSize;
+  }
+
+  /** MurmurHash3 x64 128-bit with seed 0; the two halves drive double hashing. */
+  static long[] murmur3(byte[] data) {
+    final long c1 = 0x87c37b91114253d5L;
+    final long c2 = 0x4cf5ad432745937fL;
+    int length = data.length;
+    int blocks = length >>> 4;
+    long h1 = 0;
+    long h2 = 0;
+
+    for (int i = 0; i < blocks; i++) {
+      long k1 = getLittleEndianLong(data, i << 4);
+      long k2 = getLittleEndianLong(data, (i << 4) + 8);
+
+      k1 *= c1;
+      k1 = Long.rotateLeft(k1, 31);
+      k1 *= c2;
+      h1 ^= k1;
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+
+      k2 *= c2;
+      k2 = Long.rotateLeft(k2, 33);
+      k2 *= c1;
+      h2 ^= k2;
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    int tail = blocks << 4;
+    long k1 = 0;
+    long k2 = 0;
+    switch (length & 15) {
+      case 15:
+        k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+      case 14:
+        k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+      case 13:
+        k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+      case 12:
+        k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+      case 11:
+        k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+      case 10:
+        k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+      case 9:
+        k2 ^= data[tail + 8] & 0xff;
+        k2 *= c2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= c1;
+        h2 ^= k2;
+      case 8:
+        k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+      case 7:
+        k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+      case 6:
+        k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+      case 5:
+        k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+      case 4:
+        k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+      case 3:
+        k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+      case 2:
+        k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+      case 1:
+        k1 ^= data[tail] & 0xff;
+        k1 *= c1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= c2;
+        h1 ^= k1;
+      default:
+        break;
+    }
+
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+    h1 += h2;
+    h2 += h1;
+    return new long[] {h1, h2};
+  }
+
+  private static long getLittleEndianLong(byte[] data, int offset) {
+    return (data[offset] & 0xffL)
+        | (data[offset + 1] & 0xffL) << 8
+        | (data[offset + 2] & 0xffL) << 16
+        | (data[offset + 3] & 0xffL) << 24
+        | (data[offset + 4] & 0xffL) << 32
+        | (data[offset + 5] & 0xffL) << 40
+        | (data[offset + 6] & 0xffL) << 48
+        | (data[offset + 7] & 0xffL) << 56;
+  }
+
+  private static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
@@ -0,0 +1,75 @@
+package org.fitznet.fitznetapi.util;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import javax.crypto.SecretKey;
+import org.fitznet.fitznetapi.config.JwtProperties;
+
+/**
+ * All HMAC keys a token may be signed with, materialized once and looked up by {@code kid}. Only
+ * the active key is used for signing; the rest are verify-only.
+ */
+public final class JwtKeyring extends LocatorAdapter<Key> {
+
+  private final String activeKeyId;
+  private final SecretKey signingKey;
+  private final Map<String, SecretKey> keysById;
+  private final SecretKey legacyKey;
+
+  private JwtKeyring(String activeKeyId, Map<String, SecretKey> keysById, String legacyKeyId) {
+    this.activeKeyId = activeKeyId;
+    this.signingKey = keysById.get(activeKeyId);
+    this.keysById = Map.copyOf(keysById);
+    this.legacyKey = keysById.get(legacyKeyId);
+  }
+
+  public static JwtKeyring from(JwtProperties properties) {
+    String activeKeyId = properties.getKeyId();
+    if (activeKeyId == null || activeKeyId.isBlank()) {
+      throw new IllegalStateException("jwt.key-id must not be blank");
+    }
+    Map<String, SecretKey> keys = new HashMap<>();
+    keys.put(activeKeyId, toKey(properties.getSecret()));
+    properties
+        .getVerificationKeys()
+        .forEach(
+            (kid, secret) -> {
+              if (activeKeyId.equals(kid)) {
+                throw new IllegalStateException(
+                    "jwt.verification-keys must not contain the active key id " + kid);
+              }
+              keys.put(kid, toKey(secret));
+            });
+    String legacyKeyId =
+        properties.getLegacyKeyId() == null ? activeKeyId : properties.getLegacyKeyId();
+    return new JwtKeyring(activeKeyId, keys, legacyKeyId);
+  }
+
+  private static SecretKey toKey(String secret) {
+    return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public String getActiveKeyId() {
+    return activeKeyId;
+  }
+
+  public SecretKey getSigningKey() {
+    return signingKey;
+  }
+
+  /** Returns the key for {@code kid}, the legacy key when there is no kid, or null if unknown. */
+  public SecretKey find(String kid) {
+    return kid == null ? legacyKey : keysById.get(kid);
+  }
+
+  @Override
+  protected Key locate(JwsHeader header) {
+    // A null key makes the parser reject the token as unverifiable
+    return find(header.getKeyId());
+  }
+}
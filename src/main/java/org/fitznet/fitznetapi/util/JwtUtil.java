@@ -1,27 +1,61 @@
 package org.fitznet.fitznetapi.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import javax.crypto.SecretKey;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.fitznet.fitznetapi.config.JwtProperties;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class JwtUtil {
 
-  @Value("${jwt.secret}")
-  private String secret;
+  // Anything longer than this is not a token we issued, so don't bother parsing it
+  private static final int MAX_TOKEN_LENGTH = 4096;
 
-  @Value("${jwt.expiration}")
-  private Long expiration;
+  /** Claim holding the user's Mongo id, which unlike the username can never change hands. */
+  static final String USER_ID_CLAIM = "uid";
 
-  private SecretKey getSigningKey() {
-    return Keys.hmacShaKeyFor(secret.getBytes());
+  private final long expiration;
+  private final JwtKeyring keyring;
+  private final JwtParser jwtParser;
+  private final Timer signTimer;
+  private final Timer verifiedTimer;
+  private final Timer rejectedTimer;
+
+  public JwtUtil(JwtProperties properties, MeterRegistry meterRegistry) {
+    this.expiration = properties.getExpiration();
+    // Keys and parser are immutable and thread-safe, so build them once instead of per call
+    this.keyring = JwtKeyring.from(properties);
+    this.jwtParser = Jwts.parser().keyLocator(keyring).build();
+    log.info(
+        "JWT signing key id={}, verification key ids={}",
+        keyring.getActiveKeyId(),
+        properties.getVerificationKeys().keySet());
+    this.signTimer =
+        Timer.builder("jwt.sign")
+            .description("Time spent building and signing a token")
+            .register(meterRegistry);
+    this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+    this.rejectedTimer = verifyTimer(meterRegistry, "rejected");
+  }
+
+  private static Timer verifyTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("jwt.verify")
+        .description("Time spent parsing and verifying a token")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
   }
 
   public String extractUsername(String token) {
@@ -38,11 +72,7 @@ public class JwtUtil {
   }
 
   private Claims extractAllClaims(String token) {
-    return Jwts.parser()
-        .verifyWith(getSigningKey())
-        .build()
-        .parseSignedClaims(token)
-        .getPayload();
+    return jwtParser.parseSignedClaims(token).getPayload();
   }
 
   private Boolean isTokenExpired(String token) {
@@ -50,18 +80,111 @@ public class JwtUtil {
   }
 
   public String generateToken(String username) {
+    return generateToken(username, null);
+  }
+
+  /** A token for {@code username} that also names the user's id, for id-based grants. */
+  public String generateToken(String username, String userId) {
     Map<String, Object> claims = new HashMap<>();
+    if (userId != null) {
+      claims.put(USER_ID_CLAIM, userId);
+    }
     return createToken(claims, username);
   }
 
   private String createToken(Map<String, Object> claims, String subject) {
-    return Jwts.builder()
-        .claims(claims)
-        .subject(subject)
-        .issuedAt(new Date(System.currentTimeMillis()))
-        .expiration(new Date(System.currentTimeMillis() + expiration))
-        .signWith(getSigningKey())
-        .compact();
+    return signTimer.record(
+        () -> {
+          long now = System.currentTimeMillis();
+          return Jwts.builder()
+              .header()
+              .keyId(keyring.getActiveKeyId())
+              .and()
+              .claims(claims)
+              .id(UUID.randomUUID().toString())
+              .subject(subject)
+              .issuedAt(new Date(now))
+              .expiration(new Date(now + expiration))
+              .signWith(keyring.getSigningKey())
+              .compact();
+        });
+  }
+
+  /**
+   * Parses and verifies the token exactly once. Signature and expiry are both checked by the
+   * parser, so a present result can be trusted without any further calls.
+   *
+   * @return the verified claims, or empty if the token is malformed, forged, expired or has no
+   *     subject
+   */
+  public Optional<VerifiedToken> verify(String token) {
+    if (!isWellFormed(token)) {
+      return Optional.empty();
+    }
+    long start = System.nanoTime();
+    Optional<VerifiedToken> verified = parse(token);
+    (verified.isPresent() ? verifiedTimer : rejectedTimer)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return verified;
+  }
+
+  private Optional<VerifiedToken> parse(String token) {
+    try {
+      Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+      if (claims.getSubject() == null || claims.getExpiration() == null) {
+        return Optional.empty();
+      }
+      Date issuedAt = claims.getIssuedAt();
+      return Optional.of(
+          new VerifiedToken(
+              claims.getSubject(),
+              claims.getId(),
+              issuedAt == null ? null : issuedAt.toInstant(),
+              claims.getExpiration().toInstant(),
+              claims.get(USER_ID_CLAIM, String.class)));
+    } catch (JwtException | IllegalArgumentException e) {
+      log.debug("Rejected JWT: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Cheap structural check for the compact JWS form {@code header.payload.signature}. Rejects
+   * garbage without allocating or throwing, so malformed tokens never reach the parser.
+   */
+  public static boolean isWellFormed(String token) {
+    if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+      return false;
+    }
+    // Every JSON header we issue starts with '{"', which base64url-encodes to "eyJ"
+    if (!token.startsWith("eyJ")) {
+      return false;
+    }
+    int dots = 0;
+    int segmentLength = 0;
+    for (int i = 0; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (c == '.') {
+        if (segmentLength == 0 || ++dots > 2) {
+          return false;
+        }
+        segmentLength = 0;
+      } else if (isBase64UrlChar(c)) {
+        segmentLength++;
+      } else {
+        return false;
+      }
+    }
+    // Signature segment must be present: unsigned tokens are never accepted
+    return dots == 2 && segmentLength > 0;
+  }
+
+  private static boolean isBase64UrlChar(char c) {
+    return (c >= 'A' && c <= 'Z')
+        || (c >= 'a' && c <= 'z')
+        || (c >= '0' && c <= '9')
+        || c == '-'
+        || c == '_';
   }
 
   public Boolean validateToken(String token, String username) {
@@ -77,4 +200,3 @@ public class JwtUtil {
     }
   }
 }
-
@@ -0,0 +1,68 @@
+package org.fitznet.fitznetapi.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bloom filter that grows instead of degrading once it holds more than it was sized for. When the
+ * newest stage fills up, a stage with twice the capacity and half the false-positive rate is added,
+ * so the overall false-positive rate stays below the configured one however large the set gets.
+ */
+public final class ScalableBloomFilter {
+
+  private static final int GROWTH_FACTOR = 2;
+  private static final double TIGHTENING_RATIO = 0.5;
+
+  private final List<BloomFilter> stages = new CopyOnWriteArrayList<>();
+  private volatile long stageCapacity;
+  private volatile double stageFpp;
+
+  public ScalableBloomFilter(long initialCapacity, double fpp) {
+    this.stageCapacity = initialCapacity;
+    // The stage rates form a geometric series that sums to at most fpp
+    this.stageFpp = fpp * (1 - TIGHTENING_RATIO);
+    stages.add(BloomFilter.create(stageCapacity, stageFpp));
+  }
+
+  public void put(String value) {
+    BloomFilter current = stages.get(stages.size() - 1);
+    if (current.approximateCount() >= stageCapacity) {
+      current = grow(current);
+    }
+    current.put(value);
+  }
+
+  public boolean mightContain(String value) {
+    for (BloomFilter stage : stages) {
+      if (stage.mightContain(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public long approximateCount() {
+    return stages.stream().mapToLong(BloomFilter::approximateCount).sum();
+  }
+
+  public long sizeInBytes() {
+    return stages.stream().mapToLong(stage -> stage.bitSize() / Byte.SIZE).sum();
+  }
+
+  public int stageCount() {
+    return stages.size();
+  }
+
+  private synchronized BloomFilter grow(BloomFilter full) {
+    BloomFilter newest = stages.get(stages.size() - 1);
+    if (newest != full) {
+      // Another thread already grew the filter
+      return newest;
+    }
+    stageCapacity *= GROWTH_FACTOR;
+    stageFpp *= TIGHTENING_RATIO;
+    BloomFilter next = BloomFilter.create(stageCapacity, stageFpp);
+    stages.add(next);
+    return next;
+  }
+}
@@ -0,0 +1,16 @@
+package org.fitznet.fitznetapi.util;
+
+import java.time.Instant;
+import lombok.Value;
+
+/** Claims of a JWT whose signature and expiry have already been checked by {@link JwtUtil}. */
+@Value
+public class VerifiedToken {
+  String subject;
+  /** The {@code jti} claim, used for revocation. Null for tokens issued before it existed. */
+  String tokenId;
+  Instant issuedAt;
+  Instant expiresAt;
+  /** The {@code uid} claim. Null for tokens issued before it existed. */
+  String userId;
+}
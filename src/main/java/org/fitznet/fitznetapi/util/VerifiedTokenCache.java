@@ -0,0 +1,105 @@
+package org.fitznet.fitznetapi.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of tokens that have already passed {@link JwtUtil#verify(String)}. Entries are
+ * keyed by a SHA-256 digest of the token, so raw bearer tokens are never held in memory, and each
+ * entry expires at the token's own {@code exp}.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+  private static final ThreadLocal<MessageDigest> SHA_256 =
+      ThreadLocal.withInitial(VerifiedTokenCache::newSha256);
+
+  private final boolean enabled;
+  private final Cache<String, VerifiedToken> cache;
+
+  public VerifiedTokenCache(
+      @Value("${jwt.cache.enabled:true}") boolean enabled,
+      @Value("${jwt.cache.maximum-size:10000}") long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new UntilTokenExpiry())
+            .recordStats()
+            .build();
+    if (enabled) {
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtVerified");
+    }
+    log.info("Verified JWT cache enabled={} maximumSize={}", enabled, maximumSize);
+  }
+
+  public Optional<VerifiedToken> get(String token) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    VerifiedToken verified = cache.getIfPresent(digest(token));
+    // Expiry is enforced by the cache, but never hand out a token past its exp regardless
+    if (verified == null || !verified.getExpiresAt().isAfter(Instant.now())) {
+      return Optional.empty();
+    }
+    return Optional.of(verified);
+  }
+
+  public void put(String token, VerifiedToken verified) {
+    if (enabled) {
+      cache.put(digest(token), verified);
+    }
+  }
+
+  private static String digest(String token) {
+    MessageDigest sha256 = SHA_256.get();
+    sha256.reset();
+    byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().withoutPadding().encodeToString(hash);
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /** Expires each entry at the moment its token does. */
+  private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+    @Override
+    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+      long remainingMillis = value.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, VerifiedToken value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, VerifiedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
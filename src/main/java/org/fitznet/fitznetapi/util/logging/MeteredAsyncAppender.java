@@ -0,0 +1,81 @@
+package org.fitznet.fitznetapi.util.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's {@link AsyncAppender}, counting what it throws away. Configured with {@code
+ * neverBlock}, a request thread hands its event to a bounded queue and moves on; if the queue is
+ * full the event is dropped instead of the request waiting on the console. Logback keeps no record
+ * of either kind of loss, so these counters are the only way to see it.
+ *
+ * <p>Logback starts before Spring, so the counts are static and exported by {@code
+ * AsyncLoggingMetrics} once the meter registry exists.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+  // Events below WARN shed on purpose once the queue is nearly full (the discarding threshold)
+  static final LongAdder DISCARDED = new LongAdder();
+
+  // Events of any level lost because the queue was completely full
+  static final LongAdder DROPPED = new LongAdder();
+
+  private static final Set<MeteredAsyncAppender> STARTED = new CopyOnWriteArraySet<>();
+
+  public static long discarded() {
+    return DISCARDED.sum();
+  }
+
+  public static long dropped() {
+    return DROPPED.sum();
+  }
+
+  /** Events waiting to be written across all started appenders. */
+  public static int queued() {
+    int queued = 0;
+    for (MeteredAsyncAppender appender : STARTED) {
+      queued += appender.getNumberOfElementsInQueue();
+    }
+    return queued;
+  }
+
+  @Override
+  public void start() {
+    super.start();
+    if (isStarted()) {
+      STARTED.add(this);
+    }
+  }
+
+  @Override
+  public void stop() {
+    STARTED.remove(this);
+    super.stop();
+  }
+
+  @Override
+  protected boolean isDiscardable(ILoggingEvent event) {
+    // Only asked once the queue is past the discarding threshold
+    boolean discardable = super.isDiscardable(event);
+    if (discardable) {
+      DISCARDED.increment();
+    }
+    return discardable;
+  }
+
+  /**
+   * A full queue means a non-blocking offer is about to fail. The check can race with the worker
+   * draining the queue, so the count is close rather than exact.
+   */
+  @Override
+  protected void append(ILoggingEvent event) {
+    if (isNeverBlock() && getRemainingCapacity() == 0) {
+      DROPPED.increment();
+      return;
+    }
+    super.append(event);
+  }
+}
@@ -0,0 +1,91 @@
+package org.fitznet.fitznetapi.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Marker;
+
+/**
+ * Lets each INFO (or lower) message template through at most {@code permitsPerSecond} times a
+ * second and denies the rest, so a line like {@code "Request for /user/readAll - ..."} costs
+ * nothing past that rate however busy the route is. Messages are told apart by their format
+ * string, before any arguments are formatted. WARN and ERROR always pass.
+ *
+ * <p>Turbo filters run on every logging call, so the fast path is a level check and one map
+ * lookup. Templates beyond {@code maxTemplates} are not limited rather than tracked.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+  static final LongAdder SUPPRESSED = new LongAdder();
+
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+  private int permitsPerSecond = 20;
+  private int maxTemplates = 512;
+  LongSupplier clock = System::nanoTime;
+
+  public static long suppressed() {
+    return SUPPRESSED.sum();
+  }
+
+  public void setPermitsPerSecond(int permitsPerSecond) {
+    this.permitsPerSecond = permitsPerSecond;
+  }
+
+  public void setMaxTemplates(int maxTemplates) {
+    this.maxTemplates = maxTemplates;
+  }
+
+  @Override
+  public FilterReply decide(
+      Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+    if (format == null
+        || level == null
+        || level.levelInt > Level.INFO_INT
+        || level.levelInt < logger.getEffectiveLevel().levelInt) {
+      return FilterReply.NEUTRAL;
+    }
+    Window window = windows.get(format);
+    if (window == null) {
+      if (windows.size() >= maxTemplates) {
+        return FilterReply.NEUTRAL;
+      }
+      window = windows.computeIfAbsent(format, ignored -> new Window());
+    }
+    if (window.tryAcquire(clock.getAsLong(), permitsPerSecond)) {
+      return FilterReply.NEUTRAL;
+    }
+    SUPPRESSED.increment();
+    return FilterReply.DENY;
+  }
+
+  @Override
+  public void stop() {
+    windows.clear();
+    super.stop();
+  }
+
+  /** A fixed one-second window; a reset racing with callers may let a few extra through. */
+  private static final class Window {
+    private final AtomicLong start = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger used = new AtomicInteger();
+
+    boolean tryAcquire(long now, int permits) {
+      long windowStart = start.get();
+      if ((windowStart == Long.MIN_VALUE || now - windowStart >= WINDOW_NANOS)
+          && start.compareAndSet(windowStart, now)) {
+        used.set(0);
+      }
+      return used.incrementAndGet() <= permits;
+    }
+  }
+}
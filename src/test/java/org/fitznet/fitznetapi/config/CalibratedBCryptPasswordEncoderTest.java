@@ -0,0 +1,38 @@
+package org.fitznet.fitznetapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class CalibratedBCryptPasswordEncoderTest {
+
+  @Test
+  void costOfShouldReadCostFromHash() {
+    assertEquals(10, CalibratedBCryptPasswordEncoder.costOf("$2a$10$abcdefghijklmnopqrstuv"));
+    assertEquals(4, CalibratedBCryptPasswordEncoder.costOf("$2b$04$abcdefghijklmnopqrstuv"));
+  }
+
+  @Test
+  void costOfShouldReturnMinusOneForNonBCryptValues() {
+    assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf(null));
+    assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf("plaintext"));
+    assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf("$2a$xx$abcdefghijklmnopqrstuv"));
+  }
+
+  @Test
+  void upgradeEncodingShouldOnlyFlagHashesAtALowerCost() {
+    CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+    assertFalse(encoder.upgradeEncoding(encoder.encode("testPassword123")));
+    assertTrue(encoder.upgradeEncoding(new CalibratedBCryptPasswordEncoder(4).encode("x")));
+    // A faster pod's hash is never downgraded
+    assertFalse(encoder.upgradeEncoding(new CalibratedBCryptPasswordEncoder(6).encode("x")));
+  }
+
+  @Test
+  void calibrateShouldStayWithinBounds() {
+    assertEquals(4, CalibratedBCryptPasswordEncoder.calibrate(Duration.ZERO, 4, 6));
+    assertEquals(6, CalibratedBCryptPasswordEncoder.calibrate(Duration.ofMinutes(1), 4, 6));
+  }
+}
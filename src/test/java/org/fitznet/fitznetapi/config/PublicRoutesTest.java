@@ -0,0 +1,59 @@
+package org.fitznet.fitznetapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+class PublicRoutesTest {
+
+  @Test
+  void publicAndProbeRoutesShouldMatch() {
+    assertTrue(PublicRoutes.matches(new MockHttpServletRequest("POST", "/user/login")));
+    assertTrue(PublicRoutes.matches(new MockHttpServletRequest("POST", "/user/create")));
+    assertTrue(PublicRoutes.matches(new MockHttpServletRequest("POST", "/encrypt")));
+    assertTrue(PublicRoutes.matches(new MockHttpServletRequest("GET", "/info")));
+    assertTrue(PublicRoutes.matches(new MockHttpServletRequest("GET", "/actuator/health")));
+    assertTrue(
+        PublicRoutes.matches(new MockHttpServletRequest("GET", "/actuator/health/liveness")));
+  }
+
+  @Test
+  void authenticatedRoutesShouldNotMatch() {
+    assertFalse(PublicRoutes.matches(new MockHttpServletRequest("GET", "/user/readAll")));
+    assertFalse(PublicRoutes.matches(new MockHttpServletRequest("POST", "/user/logout")));
+    assertFalse(PublicRoutes.matches(new MockHttpServletRequest("GET", "/actuator/metrics")));
+    assertFalse(PublicRoutes.matches(new MockHttpServletRequest("GET", "/infox")));
+  }
+
+  @Test
+  void preflightRequestsShouldMatchAnyPath() {
+    assertTrue(PublicRoutes.matches(new MockHttpServletRequest("OPTIONS", "/user/readAll")));
+  }
+
+  @Test
+  void contextPathShouldBeIgnored() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/info");
+    request.setContextPath("/api");
+
+    assertTrue(PublicRoutes.matches(request));
+  }
+
+  @Test
+  void exchangeMatcherShouldAgreeWithServletMatcher() {
+    assertTrue(exchangeMatches(MockServerHttpRequest.post("/user/login").build()));
+    assertTrue(exchangeMatches(MockServerHttpRequest.options("/user/readAll").build()));
+    assertTrue(exchangeMatches(MockServerHttpRequest.get("/api/info").contextPath("/api").build()));
+    assertFalse(exchangeMatches(MockServerHttpRequest.get("/user/readAll").build()));
+  }
+
+  private static boolean exchangeMatches(MockServerHttpRequest request) {
+    return PublicRoutes.EXCHANGE_MATCHER
+        .matches(MockServerWebExchange.from(request))
+        .block()
+        .isMatch();
+  }
+}
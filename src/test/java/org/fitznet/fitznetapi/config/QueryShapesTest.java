@@ -0,0 +1,116 @@
+package org.fitznet.fitznetapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class QueryShapesTest {
+
+  @Test
+  void shapeShouldRedactValuesAndDropDriverFields() {
+    BsonDocument command =
+        BsonDocument.parse(
+            "{find: 'users', filter: {email: 'alice@example.com', age: {$gt: 30}},"
+                + " projection: {password: 0}, limit: 1, $db: 'fitznet', lsid: {id: 1}}");
+
+    BsonDocument shape = QueryShapes.shapeOf("find", command);
+
+    assertEquals(
+        BsonDocument.parse(
+            "{find: 'users', filter: {email: '?', age: {$gt: 0}},"
+                + " projection: {password: 0}, limit: 1}"),
+        shape);
+  }
+
+  @Test
+  void inListsOfAnyLengthShouldHaveTheSameShape() {
+    BsonDocument two =
+        QueryShapes.shapeOf(
+            "find", BsonDocument.parse("{find: 'users', filter: {username: {$in: ['a', 'b']}}}"));
+    BsonDocument three =
+        QueryShapes.shapeOf(
+            "find",
+            BsonDocument.parse("{find: 'users', filter: {username: {$in: ['a', 'b', 'c']}}}"));
+
+    assertEquals(two, three);
+  }
+
+  @Test
+  void batchedDeletesShouldKeepOnlyTheFirstStatement() {
+    BsonDocument command =
+        BsonDocument.parse(
+            "{delete: 'users', deletes: [{q: {username: 'a'}, limit: 0},"
+                + " {q: {username: 'b'}, limit: 0}], ordered: true}");
+
+    BsonDocument shape = QueryShapes.shapeOf("delete", command);
+
+    assertEquals(
+        BsonDocument.parse(
+            "{delete: 'users', deletes: [{q: {username: '?'}, limit: 0}], ordered: true}"),
+        shape);
+  }
+
+  @Test
+  void updateCommandsShouldKeepTheirCollectionName() {
+    BsonDocument command =
+        BsonDocument.parse(
+            "{update: 'users', updates: [{q: {username: 'a', password: 'h1'},"
+                + " u: {$set: {password: 'h2'}}}], ordered: false}");
+
+    BsonDocument shape = QueryShapes.shapeOf("update", command);
+
+    assertEquals(
+        BsonDocument.parse(
+            "{update: 'users', updates: [{q: {username: '?', password: '?'},"
+                + " u: {$set: {password: '?'}}}], ordered: false}"),
+        shape);
+  }
+
+  @Test
+  void findAndModifyShouldRedactItsUpdateDocument() {
+    BsonDocument command =
+        BsonDocument.parse(
+            "{findAndModify: 'users', query: {username: 'a'}, update: {$set: {email: 'b'}},"
+                + " new: true}");
+
+    BsonDocument shape = QueryShapes.shapeOf("findAndModify", command);
+
+    assertEquals(
+        BsonDocument.parse(
+            "{findAndModify: 'users', query: {username: '?'}, update: {$set: {email: '?'}},"
+                + " new: true}"),
+        shape);
+  }
+
+  @Test
+  void insertsShouldNotBeExplained() {
+    assertNull(
+        QueryShapes.shapeOf(
+            "insert", BsonDocument.parse("{insert: 'users', documents: [{username: 'a'}]}")));
+  }
+
+  @Test
+  void planStagesShouldReadTheWinningPlan() {
+    Document explain =
+        Document.parse(
+            "{queryPlanner: {winningPlan: {stage: 'FETCH',"
+                + " inputStage: {stage: 'IXSCAN', indexName: 'username_unique'}}}}");
+
+    List<String> stages = QueryShapes.planStages(explain);
+
+    assertEquals(List.of("FETCH", "IXSCAN username_unique"), stages);
+    assertFalse(QueryShapes.isCollectionScan(stages));
+  }
+
+  @Test
+  void planStagesShouldSeeThroughTheSlotBasedEngineWrapper() {
+    Document explain =
+        Document.parse(
+            "{queryPlanner: {winningPlan: {queryPlan: {stage: 'COLLSCAN'}, slotBasedPlan: {}}}}");
+
+    assertTrue(QueryShapes.isCollectionScan(QueryShapes.planStages(explain)));
+  }
+}
@@ -0,0 +1,32 @@
+package org.fitznet.fitznetapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+class ScrapeTokenAuthorizationManagerTest {
+
+  @Test
+  void shouldGrantOnlyTheConfiguredBearerToken() {
+    ScrapeTokenAuthorizationManager manager = new ScrapeTokenAuthorizationManager("s3cret-token");
+
+    assertTrue(manager.matches("Bearer s3cret-token"));
+    assertFalse(manager.matches("Bearer s3cret-tokenx"));
+    assertFalse(manager.matches("s3cret-token"));
+    assertFalse(manager.matches(null));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/prometheus");
+    request.addHeader("Authorization", "Bearer s3cret-token");
+    assertTrue(manager.check(() -> null, new RequestAuthorizationContext(request)).isGranted());
+  }
+
+  @Test
+  void shouldGrantNothingWhenNoTokenIsConfigured() {
+    ScrapeTokenAuthorizationManager manager = new ScrapeTokenAuthorizationManager("");
+
+    assertFalse(manager.matches("Bearer "));
+    assertFalse(manager.matches("Bearer anything"));
+  }
+}
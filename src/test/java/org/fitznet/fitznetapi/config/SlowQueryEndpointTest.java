@@ -0,0 +1,98 @@
+package org.fitznet.fitznetapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.fitznet.fitznetapi.dto.responses.SlowQueryDto;
+import org.fitznet.fitznetapi.dto.responses.SlowQueryReportDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class SlowQueryEndpointTest {
+
+  private static final long MILLIS = 1_000_000L;
+
+  private MongoTemplate mongoTemplate;
+
+  private SlowQueryEndpoint endpoint;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    mongoTemplate = mock(MongoTemplate.class, RETURNS_DEEP_STUBS);
+    ObjectProvider<MongoTemplate> provider = mock(ObjectProvider.class);
+    when(provider.getObject()).thenReturn(mongoTemplate);
+    endpoint = new SlowQueryEndpoint(Duration.ofMillis(100), provider);
+  }
+
+  @AfterEach
+  void tearDown() {
+    endpoint.shutdown();
+  }
+
+  private static SlowQueryEndpoint.Started findByEmail(String email) {
+    BsonDocument command =
+        new BsonDocument("find", new BsonString("users"))
+            .append("filter", new BsonDocument("email", new BsonString(email)));
+    return new SlowQueryEndpoint.Started(
+        "fitznet", "find", QueryShapes.shapeOf("find", command), "UserRepository.findByEmail");
+  }
+
+  @Test
+  void reportShouldGroupByShapeAndFlagCollectionScans() throws Exception {
+    when(mongoTemplate
+            .getMongoDatabaseFactory()
+            .getMongoDatabase("fitznet")
+            .runCommand(any(Bson.class)))
+        .thenReturn(Document.parse("{queryPlanner: {winningPlan: {stage: 'COLLSCAN'}}}"));
+
+    endpoint.record(findByEmail("alice@example.com"), 150 * MILLIS);
+    endpoint.record(findByEmail("bob@example.com"), 250 * MILLIS);
+
+    SlowQueryReportDto report = endpoint.report();
+    assertEquals(100, report.getThresholdMillis());
+    assertEquals(2, report.getEvents());
+    SlowQueryDto query = report.getQueries().getFirst();
+    assertEquals("users", query.getCollection());
+    assertEquals("UserRepository.findByEmail", query.getOperation());
+    assertEquals(2, query.getCount());
+    assertEquals(250.0, query.getMaxMillis(), 0.001);
+    assertFalse(query.getShape().contains("example.com"));
+
+    for (int i = 0; i < 100 && query.getCollectionScan() == null; i++) {
+      Thread.sleep(20);
+      query = endpoint.report().getQueries().getFirst();
+    }
+    assertEquals(Boolean.TRUE, query.getCollectionScan());
+    assertEquals(List.of("COLLSCAN"), query.getPlan());
+  }
+
+  @Test
+  void shapesBeyondTheLimitShouldOnlyBeCounted() {
+    for (int i = 0; i <= SlowQueryEndpoint.MAX_SHAPES; i++) {
+      BsonDocument command =
+          new BsonDocument("find", new BsonString("users"))
+              .append("filter", new BsonDocument("field" + i, new BsonString("x")));
+      endpoint.record(
+          new SlowQueryEndpoint.Started(
+              "fitznet", "find", QueryShapes.shapeOf("find", command), "none"),
+          150 * MILLIS);
+    }
+
+    SlowQueryReportDto report = endpoint.report();
+
+    assertEquals(SlowQueryEndpoint.MAX_SHAPES, report.getQueries().size());
+    assertEquals(1, report.getUntracked());
+    assertEquals(SlowQueryEndpoint.MAX_SHAPES + 1, report.getEvents());
+  }
+}
@@ -0,0 +1,61 @@
+package org.fitznet.fitznetapi.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.fitznet.fitznetapi.dto.responses.PinningReportDto;
+import org.fitznet.fitznetapi.dto.responses.PinningSiteDto;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadPinningEndpointTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final VirtualThreadPinningEndpoint endpoint =
+      new VirtualThreadPinningEndpoint(Duration.ofMillis(20), meterRegistry);
+
+  @Test
+  void reportShouldGroupByStackWorstTotalFirst() {
+    List<String> cacheLoad = List.of("java.lang.Object.wait0:-1", "UserCache.getByUsername:70");
+    List<String> bloomFilter = List.of("UserExistenceFilter.add:90");
+    endpoint.record(Duration.ofMillis(30), bloomFilter);
+    endpoint.record(Duration.ofMillis(50), cacheLoad);
+    endpoint.record(Duration.ofMillis(70), cacheLoad);
+
+    PinningReportDto report = endpoint.report();
+
+    assertEquals(20, report.getThresholdMillis());
+    assertEquals(3, report.getEvents());
+    PinningSiteDto worst = report.getSites().getFirst();
+    assertEquals(cacheLoad, worst.getStack());
+    assertEquals(2, worst.getCount());
+    assertEquals(120.0, worst.getTotalMillis(), 0.001);
+    assertEquals(70.0, worst.getMaxMillis(), 0.001);
+    assertEquals(3, meterRegistry.get("jvm.threads.virtual.pinned").timer().count());
+  }
+
+  @Test
+  void sitesBeyondTheLimitShouldOnlyBeCounted() {
+    for (int i = 0; i <= VirtualThreadPinningEndpoint.MAX_SITES; i++) {
+      endpoint.record(Duration.ofMillis(25), List.of("Frame.method:" + i));
+    }
+
+    PinningReportDto report = endpoint.report();
+
+    assertEquals(VirtualThreadPinningEndpoint.MAX_SITES, report.getSites().size());
+    assertEquals(1, report.getUntracked());
+    assertEquals(VirtualThreadPinningEndpoint.MAX_SITES + 1, report.getEvents());
+  }
+
+  @Test
+  void resetShouldClearEverything() {
+    endpoint.record(Duration.ofMillis(25), List.of("Frame.method:1"));
+
+    endpoint.reset();
+
+    assertEquals(0, endpoint.report().getEvents());
+    assertTrue(endpoint.report().getSites().isEmpty());
+  }
+}
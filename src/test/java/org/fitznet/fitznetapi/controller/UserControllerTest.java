@@ -5,37 +5,61 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.openMocks;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Collections;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 import org.fitznet.fitznetapi.dto.UserDTO;
 import org.fitznet.fitznetapi.dto.requests.DeleteUserRequestDto;
 import org.fitznet.fitznetapi.dto.requests.LoginRequestDto;
 import org.fitznet.fitznetapi.dto.requests.UpdateProfileRequestDto;
 import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
 import org.fitznet.fitznetapi.dto.responses.LoginResponseDto;
+import org.fitznet.fitznetapi.dto.responses.LogoutResponseDto;
 import org.fitznet.fitznetapi.dto.responses.UpdateProfileResponseDto;
+import org.fitznet.fitznetapi.dto.responses.UserPageDto;
+import org.fitznet.fitznetapi.exception.ApiException;
+import org.fitznet.fitznetapi.exception.ConflictException;
+import org.fitznet.fitznetapi.exception.NotFoundException;
+import org.fitznet.fitznetapi.exception.ProblemResponses;
+import org.fitznet.fitznetapi.exception.UnauthorizedException;
 import org.fitznet.fitznetapi.model.User;
-import org.fitznet.fitznetapi.repository.UserRepository;
+import org.fitznet.fitznetapi.repository.UserFields;
+import org.fitznet.fitznetapi.service.LoginResult;
+import org.fitznet.fitznetapi.service.TokenRevocationService;
+import org.fitznet.fitznetapi.service.UserExistenceFilter;
 import org.fitznet.fitznetapi.service.UserService;
 import org.fitznet.fitznetapi.util.JwtUtil;
+import org.fitznet.fitznetapi.util.VerifiedToken;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 class UserControllerTest {
 
   @Mock private UserService userService;
 
-  @Mock private UserRepository userRepository;
-
   @Mock private JwtUtil jwtUtil;
 
+  @Mock private TokenRevocationService tokenRevocationService;
+
+  @Mock private UserExistenceFilter userExistenceFilter;
+
+  @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
   @InjectMocks private UserController userController;
 
   private AutoCloseable mocks;
@@ -43,6 +67,7 @@ class UserControllerTest {
   @BeforeEach
   public void setUp() {
     mocks = openMocks(this);
+    when(userExistenceFilter.mightContainUsername(any())).thenReturn(true);
   }
 
   @AfterEach
@@ -53,6 +78,17 @@ class UserControllerTest {
     }
   }
 
+  private static ApiException failure(CompletableFuture<?> future) {
+    CompletionException exception = assertThrows(CompletionException.class, future::join);
+    return assertInstanceOf(ApiException.class, exception.getCause());
+  }
+
+  private static <T> T body(CompletableFuture<ResponseEntity<?>> future, Class<T> type) {
+    ResponseEntity<?> response = future.join();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    return assertInstanceOf(type, response.getBody());
+  }
+
   @Test
   void createUserShouldReturnCreatedUser() {
     UserDTO userDTO = new UserDTO("mattlol85", "test@example.com", "testPassword");
@@ -63,19 +99,43 @@ class UserControllerTest {
             .password("testPassword")
             .build();
 
-    when(userService.saveUser(any(User.class))).thenReturn(user);
-    when(userRepository.findByUsername(userDTO.getUsername()))
-        .thenReturn(null); // Ensuring user doesn't exist
-    when(userRepository.findByEmail(userDTO.getEmail()))
-        .thenReturn(null); // Ensuring email doesn't exist
+    when(userService.saveUser(any(User.class))).thenReturn(CompletableFuture.completedFuture(user));
 
-    User createdUser = userController.createUser(userDTO);
+    User createdUser = userController.createUser(userDTO).join();
 
     assertNotNull(createdUser);
     assertEquals("mattlol85", createdUser.getUsername());
     verify(userService, times(1)).saveUser(any(User.class));
   }
 
+  @Test
+  void createUserShouldInsertWithoutCheckingForExistingUsersFirst() {
+    UserDTO userDTO = new UserDTO("mattlol85", "test@example.com", "testPassword");
+    User user = User.builder().username("mattlol85").email("test@example.com").build();
+
+    when(userService.saveUser(any(User.class))).thenReturn(CompletableFuture.completedFuture(user));
+
+    userController.createUser(userDTO).join();
+
+    verify(userService, never()).readByUsername(any());
+    verify(userService, never()).readByEmail(any());
+  }
+
+  @Test
+  void createUserShouldPassThroughConflictFromInsert() {
+    UserDTO userDTO = new UserDTO("mattlol85", "test@example.com", "testPassword");
+
+    when(userService.saveUser(any(User.class)))
+        .thenReturn(
+            CompletableFuture.failedFuture(
+                new ConflictException("User already exists")));
+
+    ApiException exception = failure(userController.createUser(userDTO));
+
+    assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+    assertEquals("User already exists", exception.getReason());
+  }
+
   @Test
   void readUserShouldReturnUserWhenUserExists() {
     String username = "mattlol85";
@@ -86,25 +146,25 @@ class UserControllerTest {
             .password("testPassword")
             .build();
 
-    when(userService.readByUsername(username)).thenReturn(user);
+    when(userService.readByUsername(username, UserFields.ALL)).thenReturn(user);
 
-    User foundUser = userController.readUser(username);
+    User foundUser = userController.readUser(username, null);
 
     assertNotNull(foundUser);
     assertEquals(username, foundUser.getUsername());
-    verify(userService, times(1)).readByUsername(username);
+    verify(userService, times(1)).readByUsername(username, UserFields.ALL);
   }
 
   @Test
   void readUserShouldReturnNullWhenUserDoesNotExist() {
     String username = "unknownUser";
 
-    when(userService.readByUsername(username)).thenReturn(null);
+    when(userService.readByUsername(username, UserFields.ALL)).thenReturn(null);
 
-    User foundUser = userController.readUser(username);
+    User foundUser = userController.readUser(username, null);
 
     assertNull(foundUser);
-    verify(userService, times(1)).readByUsername(username);
+    verify(userService, times(1)).readByUsername(username, UserFields.ALL);
   }
 
   @Test
@@ -116,21 +176,56 @@ class UserControllerTest {
             .password("testPassword")
             .build();
 
-    when(userService.findAll()).thenReturn(Collections.singletonList(user));
+    when(userService.findPage(null, 100, UserFields.ALL))
+        .thenReturn(new UserPageDto(Collections.singletonList(user), null));
+
+    ResponseEntity<?> response = userController.readAllUsers(null, 100, null, null);
+
+    UserPageDto page = assertInstanceOf(UserPageDto.class, response.getBody());
+    assertEquals(1, page.getUsers().size());
+    assertEquals("mattlol85", page.getUsers().getFirst().getUsername());
+    assertNull(page.getNext());
+    verify(userService, times(1)).findPage(null, 100, UserFields.ALL);
+    verify(userService, never()).findAll();
+  }
+
+  @Test
+  void readAllUsersShouldRejectOutOfRangeLimit() {
+    ApiException exception =
+        assertThrows(
+            ApiException.class,
+            () -> userController.readAllUsers(null, 5000, null, MediaType.APPLICATION_JSON_VALUE));
 
-    List<User> users = userController.readAllUsers();
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+  }
 
-    assertNotNull(users);
-    assertEquals(1, users.size());
-    assertEquals("mattlol85", users.getFirst().getUsername());
-    verify(userService, times(1)).findAll();
+  @Test
+  void readAllUsersShouldStreamNdjsonWhenRequested() throws Exception {
+    User first = User.builder().id("1").username("mattlol85").password("secret").build();
+    User second = User.builder().id("2").username("mattnew85").password("secret").build();
+
+    when(userService.streamAll(UserFields.ALL)).thenReturn(Stream.of(first, second));
+
+    ResponseEntity<?> response =
+        userController.readAllUsers(null, 100, null, MediaType.APPLICATION_NDJSON_VALUE);
+    StreamingResponseBody body =
+        assertInstanceOf(StreamingResponseBody.class, response.getBody());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].contains("\"username\":\"mattlol85\""));
+    assertFalse(lines[0].contains("secret"));
+    verify(userService, never()).findPage(any(), anyInt(), any());
   }
 
   @Test
   void deleteUserShouldDeleteUserWhenUserExists() {
     DeleteUserRequestDto deleteUserRequestDto = new DeleteUserRequestDto();
     deleteUserRequestDto.setUsername("mattlol85");
-    when(userRepository.findByUsername(deleteUserRequestDto.getUsername())).thenReturn(new User());
+    when(userService.readByUsername(deleteUserRequestDto.getUsername())).thenReturn(new User());
     doNothing().when(userService).deleteUser(deleteUserRequestDto.getUsername());
 
     userController.deleteUser(deleteUserRequestDto);
@@ -143,11 +238,11 @@ class UserControllerTest {
     DeleteUserRequestDto deleteUserRequestDto = new DeleteUserRequestDto();
     deleteUserRequestDto.setUsername("unknownUser");
 
-    when(userRepository.findByUsername(deleteUserRequestDto.getUsername())).thenReturn(null);
+    when(userService.readByUsername(deleteUserRequestDto.getUsername())).thenReturn(null);
 
-    ResponseStatusException exception =
+    ApiException exception =
         assertThrows(
-            ResponseStatusException.class, () -> userController.deleteUser(deleteUserRequestDto));
+            ApiException.class, () -> userController.deleteUser(deleteUserRequestDto));
 
     assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
     verify(userService, times(0)).deleteUser(deleteUserRequestDto.getUsername());
@@ -159,9 +254,10 @@ class UserControllerTest {
         new UpdateUserRequestDto("mattlol85", "newUsername", "newEmail@example.com", "newEmail@example.com", "newPassword123");
 
     User updatedUser = User.builder().username("newUsername").email("newEmail@example.com").build();
-    when(userService.updateUser(any(UpdateUserRequestDto.class))).thenReturn(updatedUser);
+    when(userService.updateUser(any(UpdateUserRequestDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(updatedUser));
 
-    userController.updateUser(updateUserRequestDto);
+    userController.updateUser(updateUserRequestDto).join();
 
     verify(userService, times(1)).updateUser(any(UpdateUserRequestDto.class));
   }
@@ -176,18 +272,20 @@ class UserControllerTest {
             .password("$2a$10$hashedPassword")
             .build();
 
-    when(userService.verifyPassword("mattlol85", "testPassword123")).thenReturn(true);
-    when(userService.readByUsername("mattlol85")).thenReturn(user);
+    when(userService.authenticate("mattlol85", "testPassword123"))
+        .thenReturn(CompletableFuture.completedFuture(LoginResult.authenticated(user)));
     when(jwtUtil.generateToken("mattlol85")).thenReturn("mock-jwt-token");
 
-    LoginResponseDto response = userController.login(loginRequest);
+    LoginResponseDto response =
+        body(userController.login(loginRequest), LoginResponseDto.class);
 
     assertTrue(response.isSuccess());
     assertEquals("Login successful", response.getMessage());
     assertEquals("mattlol85", response.getUsername());
     assertEquals("test@example.com", response.getEmail());
     assertEquals("mock-jwt-token", response.getToken());
-    verify(userService, times(1)).verifyPassword("mattlol85", "testPassword123");
+    verify(userService, times(1)).authenticate("mattlol85", "testPassword123");
+    verify(userService, never()).readByUsername(any());
     verify(jwtUtil, times(1)).generateToken("mattlol85");
   }
 
@@ -195,14 +293,16 @@ class UserControllerTest {
   void loginShouldReturnFailureWhenCredentialsAreInvalid() {
     LoginRequestDto loginRequest = new LoginRequestDto("mattlol85", "wrongPassword");
 
-    when(userService.verifyPassword("mattlol85", "wrongPassword")).thenReturn(false);
+    when(userService.authenticate("mattlol85", "wrongPassword"))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                LoginResult.failed(LoginResult.Status.BAD_PASSWORD)));
 
-    ResponseStatusException exception =
-        assertThrows(ResponseStatusException.class, () -> userController.login(loginRequest));
+    ResponseEntity<?> response = userController.login(loginRequest).join();
 
-    assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
-    assertEquals("Invalid username or password", exception.getReason());
-    verify(userService, times(1)).verifyPassword("mattlol85", "wrongPassword");
+    assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    assertSame(ProblemResponses.of(UnauthorizedException.BAD_CREDENTIALS), response);
+    verify(userService, times(1)).authenticate("mattlol85", "wrongPassword");
     verify(userService, times(0)).readByUsername(any());
   }
 
@@ -221,9 +321,11 @@ class UserControllerTest {
         .password("$2a$10$hashedPassword")
         .build();
 
-    when(userService.updateUser(any(UpdateUserRequestDto.class))).thenReturn(updatedUser);
+    when(userService.updateUser(any(UpdateUserRequestDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(updatedUser));
 
-    UpdateProfileResponseDto response = userController.updateProfile(profileRequest);
+    UpdateProfileResponseDto response =
+        body(userController.updateProfile(profileRequest), UpdateProfileResponseDto.class);
 
     assertTrue(response.isSuccess());
     assertEquals("Profile updated successfully", response.getMessage());
@@ -233,19 +335,20 @@ class UserControllerTest {
   }
 
   @Test
-  void updateProfileShouldThrowNotFoundWhenUserDoesNotExist() {
+  void updateProfileShouldReturnNotFoundWhenUserDoesNotExist() {
     UsernamePasswordAuthenticationToken auth =
         new UsernamePasswordAuthenticationToken("unknownUser", null, null);
     SecurityContextHolder.getContext().setAuthentication(auth);
 
     UpdateProfileRequestDto profileRequest = new UpdateProfileRequestDto("newUsername", "new@example.com", null);
 
-    when(userService.updateUser(any(UpdateUserRequestDto.class))).thenReturn(null);
+    when(userService.updateUser(any(UpdateUserRequestDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
 
-    ResponseStatusException exception =
-        assertThrows(ResponseStatusException.class, () -> userController.updateProfile(profileRequest));
+    ResponseEntity<?> response = userController.updateProfile(profileRequest).join();
 
-    assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    assertSame(ProblemResponses.of(NotFoundException.USER), response);
   }
 
   @Test
@@ -263,9 +366,11 @@ class UserControllerTest {
         .password("$2a$10$hashedPassword")
         .build();
 
-    when(userService.updateUser(any(UpdateUserRequestDto.class))).thenReturn(updatedUser);
+    when(userService.updateUser(any(UpdateUserRequestDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(updatedUser));
 
-    UpdateProfileResponseDto response = userController.updateProfile(profileRequest);
+    UpdateProfileResponseDto response =
+        body(userController.updateProfile(profileRequest), UpdateProfileResponseDto.class);
 
     assertTrue(response.isSuccess());
     assertEquals("mattlol85", response.getUsername());
@@ -286,11 +391,42 @@ class UserControllerTest {
         .password("$2a$10$newHashedPassword")
         .build();
 
-    when(userService.updateUser(any(UpdateUserRequestDto.class))).thenReturn(updatedUser);
+    when(userService.updateUser(any(UpdateUserRequestDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(updatedUser));
 
-    UpdateProfileResponseDto response = userController.updateProfile(profileRequest);
+    UpdateProfileResponseDto response =
+        body(userController.updateProfile(profileRequest), UpdateProfileResponseDto.class);
 
     assertTrue(response.isSuccess());
     verify(userService, times(1)).updateUser(any(UpdateUserRequestDto.class));
   }
+
+  @Test
+  void logoutShouldRevokeCurrentToken() {
+    VerifiedToken token =
+        new VerifiedToken(
+            "mattlol85", "jti-1", Instant.now(), Instant.now().plusSeconds(3600), null);
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken("mattlol85", token, null));
+
+    LogoutResponseDto response = userController.logout();
+
+    assertTrue(response.isSuccess());
+    verify(tokenRevocationService, times(1)).revoke(token);
+  }
+
+  @Test
+  void logoutShouldRejectTokenWithoutId() {
+    VerifiedToken token =
+        new VerifiedToken(
+            "mattlol85", null, Instant.now(), Instant.now().plusSeconds(3600), null);
+    SecurityContextHolder.getContext()
+        .setAuthentication(new UsernamePasswordAuthenticationToken("mattlol85", token, null));
+
+    ApiException exception =
+        assertThrows(ApiException.class, () -> userController.logout());
+
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    verify(tokenRevocationService, never()).revoke(any());
+  }
 }
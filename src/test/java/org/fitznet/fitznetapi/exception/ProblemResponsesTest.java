@@ -0,0 +1,48 @@
+package org.fitznet.fitznetapi.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+class ProblemResponsesTest {
+
+  @Test
+  void ofShouldReuseTheResponseForTheSameStatusAndDetail() {
+    ResponseEntity<byte[]> first =
+        ProblemResponses.of(HttpStatus.UNAUTHORIZED, "Invalid username or password");
+    ResponseEntity<byte[]> second = ProblemResponses.of(UnauthorizedException.BAD_CREDENTIALS);
+
+    assertSame(first, second);
+    assertNotSame(first, ProblemResponses.of(NotFoundException.USER));
+  }
+
+  @Test
+  void bodyShouldBeAProblemDetailWithTheLegacyFields() throws Exception {
+    ResponseEntity<byte[]> response =
+        ProblemResponses.of(HttpStatus.CONFLICT, "Username already taken");
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+    JsonNode body = new ObjectMapper().readTree(response.getBody());
+    assertEquals("about:blank", body.get("type").asText());
+    assertEquals("Conflict", body.get("title").asText());
+    assertEquals(409, body.get("status").asInt());
+    assertEquals("Username already taken", body.get("detail").asText());
+    assertFalse(body.get("success").asBoolean());
+    assertEquals("Username already taken", body.get("message").asText());
+  }
+
+  @Test
+  void apiExceptionsShouldNotCaptureAStackTrace() {
+    ApiException e = new BadRequestException("No fields to update");
+
+    assertEquals(0, e.getStackTrace().length);
+    assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    assertEquals("No fields to update", e.getReason());
+  }
+}
@@ -8,6 +8,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
 import org.fitznet.fitznetapi.config.EmbeddedMongoTestConfiguration;
 import org.fitznet.fitznetapi.dto.requests.LoginRequestDto;
 import org.fitznet.fitznetapi.dto.responses.LoginResponseDto;
@@ -35,6 +36,9 @@ class JwtAuthenticationIntegrationTest {
 
   private static final String ALLOWED_ORIGIN = "https://fitznet.doomdns.org";
 
+  // Matches security.admin-user-ids in the test properties
+  private static final String ADMIN_USER_ID = "000000000000000000000a01";
+
   private String validToken;
 
   @BeforeEach
@@ -49,6 +53,16 @@ class JwtAuthenticationIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void publicEndpointsShouldIgnoreInvalidToken() throws Exception {
+    mockMvc
+        .perform(get("/info").header("Authorization", "Bearer invalid.jwt.token"))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/actuator/health").header("Authorization", "Bearer invalid.jwt.token"))
+        .andExpect(status().isOk());
+  }
+
   @Test
   void protectedEndpointShouldReturnUnauthorizedWithoutToken() throws Exception {
     mockMvc
@@ -95,11 +109,17 @@ class JwtAuthenticationIntegrationTest {
   void loginEndpointShouldBePublic() throws Exception {
     LoginRequestDto loginRequest = new LoginRequestDto("testuser", "password123");
 
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/user/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
     mockMvc
-        .perform(
-            post("/user/login")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(loginRequest)))
+        .perform(asyncDispatch(result))
         .andExpect(status().isUnauthorized()); // Will fail because user not in DB, but endpoint is accessible
   }
 
@@ -108,11 +128,134 @@ class JwtAuthenticationIntegrationTest {
     String userJson =
         "{\"username\":\"newuser\",\"email\":\"new@example.com\",\"password\":\"password123\"}";
 
+    MvcResult result =
+        mockMvc
+            .perform(post("/user/create").contentType(MediaType.APPLICATION_JSON).content(userJson))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
     mockMvc
-        .perform(post("/user/create").contentType(MediaType.APPLICATION_JSON).content(userJson))
+        .perform(asyncDispatch(result))
         .andExpect(status().isOk()); // or other status, but not 401/403
   }
 
+  @Test
+  void createUserShouldReturnConflictForTakenUsernameOrEmail() throws Exception {
+    assertEquals(200, createUser("dupuser", "dup@example.com"));
+    // Enforced by the unique indexes, not by a lookup before the insert
+    assertEquals(409, createUser("dupuser", "other@example.com"));
+    assertEquals(409, createUser("otheruser", "dup@example.com"));
+  }
+
+  private int createUser(String username, String email) throws Exception {
+    String userJson =
+        objectMapper.writeValueAsString(
+            Map.of("username", username, "email", email, "password", "password123"));
+    MvcResult result =
+        mockMvc
+            .perform(post("/user/create").contentType(MediaType.APPLICATION_JSON).content(userJson))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getStatus();
+  }
+
+  @Test
+  void adminEndpointsShouldBeForbiddenToOtherUsers() throws Exception {
+    mockMvc
+        .perform(
+            post("/admin/users/import")
+                .header("Authorization", "Bearer " + validToken)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"username\":\"x\",\"password\":\"password123\"}"))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void adminEndpointsShouldNotBeGrantedByUsername() throws Exception {
+    // Anyone can register or rename into "admin"; only the id in the token counts
+    mockMvc
+        .perform(
+            post("/admin/users/import")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("admin"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"username\":\"x\",\"password\":\"password123\"}"))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(
+            post("/admin/users/import")
+                .header(
+                    "Authorization",
+                    "Bearer " + jwtUtil.generateToken("admin", "000000000000000000000b02"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"username\":\"x\",\"password\":\"password123\"}"))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void adminShouldImportUsersFromNdjson() throws Exception {
+    String body =
+        "{\"username\":\"imported1\",\"email\":\"imported1@example.com\","
+            + "\"password\":\"password123\"}\n"
+            + "{\"username\":\"imported1\",\"password\":\"password123\"}\n";
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/admin/users/import")
+                    .header(
+                        "Authorization",
+                        "Bearer " + jwtUtil.generateToken("admin", ADMIN_USER_ID))
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(body))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String[] lines =
+        mockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].contains("\"status\":\"CREATED\""));
+    assertTrue(lines[1].contains("\"status\":\"DUPLICATE\""));
+  }
+
+  @Test
+  void adminShouldBatchUpdateAndDeleteUsers() throws Exception {
+    assertEquals(200, createUser("batchuser1", "batchuser1@example.com"));
+    assertEquals(200, createUser("batchuser2", "batchuser2@example.com"));
+    String adminToken = "Bearer " + jwtUtil.generateToken("admin", ADMIN_USER_ID);
+
+    mockMvc
+        .perform(
+            patch("/admin/users/update")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "[{\"username\":\"batchuser1\",\"updatedEmail\":\"b1@example.com\"},"
+                        + "{\"username\":\"batchuser2\",\"updatedEmail\":\"b1@example.com\"},"
+                        + "{\"username\":\"nobody\",\"updatedEmail\":\"n@example.com\"}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.modified").value(1))
+        .andExpect(jsonPath("$.items[0].matched").value(1))
+        .andExpect(jsonPath("$.items[0].modified").doesNotExist())
+        .andExpect(jsonPath("$.items[0].error").doesNotExist())
+        .andExpect(jsonPath("$.items[1].error").value("Email in use"))
+        .andExpect(jsonPath("$.items[2].matched").value(0));
+
+    mockMvc
+        .perform(
+            delete("/admin/users/delete")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"username\":\"batchuser1\"},{\"username\":\"batchuser2\"}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.modified").value(2));
+  }
+
   @Test
   void authorizationHeaderWithoutBearerPrefixShouldBeRejected() throws Exception {
     mockMvc
@@ -200,13 +343,14 @@ class JwtAuthenticationIntegrationTest {
     // For now, we're just testing the structure
     LoginRequestDto loginRequest = new LoginRequestDto("realuser", "password");
 
-    MvcResult result =
+    MvcResult asyncResult =
         mockMvc
             .perform(
                 post("/user/login")
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(objectMapper.writeValueAsString(loginRequest)))
             .andReturn();
+    MvcResult result = mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
 
     // If login was successful (would need real user), response should contain a token
     if (result.getResponse().getStatus() == 200) {
@@ -223,6 +367,20 @@ class JwtAuthenticationIntegrationTest {
     }
   }
 
+  @Test
+  void tokenShouldBeRejectedAfterLogout() throws Exception {
+    mockMvc
+        .perform(post("/user/logout").header("Authorization", "Bearer " + validToken))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(
+            get("/user/readAll")
+                .header("Authorization", "Bearer " + validToken)
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnauthorized());
+  }
+
   @Test
   void actuatorInfoShouldReturnCorsHeaderForAllowedOrigin() throws Exception {
     mockMvc
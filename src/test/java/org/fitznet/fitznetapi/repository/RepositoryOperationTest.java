@@ -0,0 +1,56 @@
+package org.fitznet.fitznetapi.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+class RepositoryOperationTest {
+
+  interface Lookups {
+    String find();
+
+    String findViaProxy();
+  }
+
+  private Lookups proxied;
+
+  private final Lookups target =
+      new Lookups() {
+        @Override
+        public String find() {
+          return RepositoryOperation.current();
+        }
+
+        @Override
+        public String findViaProxy() {
+          return proxied.find();
+        }
+      };
+
+  private Lookups proxy() {
+    ProxyFactory factory = new ProxyFactory(target);
+    factory.addInterface(Lookups.class);
+    factory.addAdvice(RepositoryOperation.interceptor("Lookups"));
+    proxied = (Lookups) factory.getProxy();
+    return proxied;
+  }
+
+  @Test
+  void currentShouldNameTheRepositoryMethodDuringTheCall() {
+    assertEquals("Lookups.find", proxy().find());
+  }
+
+  @Test
+  void currentShouldBeClearedAfterTheCall() {
+    proxy().find();
+
+    assertNull(RepositoryOperation.current());
+  }
+
+  @Test
+  void nestedCallsShouldKeepTheOutermostOperation() {
+    assertEquals("Lookups.findViaProxy", proxy().findViaProxy());
+    assertNull(RepositoryOperation.current());
+  }
+}
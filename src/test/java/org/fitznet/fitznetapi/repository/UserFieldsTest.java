@@ -0,0 +1,58 @@
+package org.fitznet.fitznetapi.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.bson.Document;
+import org.fitznet.fitznetapi.model.User;
+import org.junit.jupiter.api.Test;
+
+class UserFieldsTest {
+
+  @Test
+  void missingOrBlankFieldsShouldMeanAllFields() {
+    assertSame(UserFields.ALL, UserFields.parse(null));
+    assertSame(UserFields.ALL, UserFields.parse(" "));
+    assertSame(UserFields.ALL, UserFields.parse("id,username,email"));
+  }
+
+  @Test
+  void parseShouldReturnSharedInstancesRegardlessOfOrderAndSpacing() {
+    assertSame(UserFields.parse("username,email"), UserFields.parse(" email , username"));
+    assertSame(UserFields.parse("email"), UserFields.parse("email,email"));
+  }
+
+  @Test
+  void parseShouldRejectFieldsOutsideTheWhitelist() {
+    assertThrows(IllegalArgumentException.class, () -> UserFields.parse("username,password"));
+    assertThrows(IllegalArgumentException.class, () -> UserFields.parse("username,"));
+  }
+
+  @Test
+  void projectionShouldNameOnlyRequestedFields() {
+    assertEquals(
+        new Document("_id", 0).append("username", 1),
+        UserFields.parse("username").projection());
+    assertEquals(
+        new Document("_id", 1).append("username", 1).append("email", 1),
+        UserFields.ALL.projection());
+    assertFalse(UserFields.ALL.projection().containsKey("password"));
+  }
+
+  @Test
+  void restrictShouldCopyOnlyRequestedFields() {
+    User user =
+        User.builder().id("1").username("mattlol85").email("test@example.com").build();
+
+    User restricted = UserFields.parse("email").restrict(user);
+
+    assertNull(restricted.getId());
+    assertNull(restricted.getUsername());
+    assertEquals("test@example.com", restricted.getEmail());
+    assertEquals("mattlol85", user.getUsername());
+    assertSame(user, UserFields.ALL.restrict(user));
+  }
+}
@@ -2,7 +2,12 @@ package org.fitznet.fitznetapi.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,16 +16,19 @@ import org.junit.jupiter.api.Test;
 public class EncryptionServiceTest {
 
   private EncryptionService encryptionService;
+  private SecretKey secretKey;
+  private SimpleMeterRegistry meterRegistry;
 
   @BeforeEach
   public void setUp() throws Exception {
     // Generate a secret key for testing
     KeyGenerator keyGen = KeyGenerator.getInstance("AES");
     keyGen.init(128);
-    SecretKey secretKey = keyGen.generateKey();
+    secretKey = keyGen.generateKey();
     String base64EncodedKey = Base64.getEncoder().encodeToString(secretKey.getEncoded());
 
-    encryptionService = new EncryptionService(base64EncodedKey);
+    meterRegistry = new SimpleMeterRegistry();
+    encryptionService = new EncryptionService(base64EncodedKey, "primary", meterRegistry);
   }
 
   @Test
@@ -62,4 +70,96 @@ public class EncryptionServiceTest {
 
     assertEquals(originalData, decryptedData);
   }
+
+  @Test
+  public void encryptShouldWriteAVersionedEnvelopeWithAFreshIv() throws Exception {
+    String first = encryptionService.encrypt("Hello, World!");
+    String second = encryptionService.encrypt("Hello, World!");
+
+    assertNotEquals(first, second);
+    byte[] envelope = Base64.getDecoder().decode(first);
+    assertEquals(EncryptionService.VERSION, envelope[0]);
+    assertEquals("primary", new String(envelope, 2, envelope[1], StandardCharsets.UTF_8));
+    assertEquals(2 + 7 + EncryptionService.IV_LENGTH + 13 + 16, envelope.length);
+  }
+
+  @Test
+  public void decryptShouldRejectATamperedEnvelope() throws Exception {
+    byte[] envelope = Base64.getDecoder().decode(encryptionService.encrypt("Hello, World!"));
+    envelope[envelope.length - 1] ^= 1;
+
+    String tampered = Base64.getEncoder().encodeToString(envelope);
+
+    assertThrows(AEADBadTagException.class, () -> encryptionService.decrypt(tampered));
+  }
+
+  @Test
+  public void decryptShouldRejectAnEnvelopeUnderAnotherKeyId() throws Exception {
+    String base64EncodedKey = Base64.getEncoder().encodeToString(secretKey.getEncoded());
+    EncryptionService rotated =
+        new EncryptionService(base64EncodedKey, "other", new SimpleMeterRegistry());
+    // 47 bytes, not a whole number of AES blocks, so the ECB attempt fails deterministically
+    String foreign = rotated.encrypt("Hello, World");
+
+    GeneralSecurityException exception =
+        assertThrows(GeneralSecurityException.class, () -> encryptionService.decrypt(foreign));
+
+    assertTrue(exception.getMessage().endsWith("unknown key id other"));
+    assertEquals(0.0, meterRegistry.get("encryption.legacy.decrypts").counter().count());
+  }
+
+  @Test
+  public void decryptShouldNameAKeyIdLongerThan127Bytes() throws Exception {
+    String base64EncodedKey = Base64.getEncoder().encodeToString(secretKey.getEncoded());
+    String keyId = "k".repeat(200);
+    EncryptionService rotated =
+        new EncryptionService(base64EncodedKey, keyId, new SimpleMeterRegistry());
+    // 243 bytes, so again not a whole number of blocks
+    String foreign = rotated.encrypt("Hello, World!");
+
+    GeneralSecurityException exception =
+        assertThrows(GeneralSecurityException.class, () -> encryptionService.decrypt(foreign));
+
+    assertTrue(exception.getMessage().endsWith("unknown key id " + keyId));
+  }
+
+  @Test
+  public void decryptShouldPreferLegacyEcbOverAnEnvelopeLookalike() throws Exception {
+    // Pick the plaintext block that ECB encrypts to [1][1]['k']..., an envelope header for key
+    // id "k". With its padding block that is 32 bytes, long enough to pass for an envelope.
+    byte[] lookalike = new byte[16];
+    lookalike[0] = EncryptionService.VERSION;
+    lookalike[1] = 1;
+    lookalike[2] = 'k';
+    Cipher raw = Cipher.getInstance("AES/ECB/NoPadding");
+    raw.init(Cipher.DECRYPT_MODE, secretKey);
+    byte[] plaintext = raw.doFinal(lookalike);
+    Cipher cipher = Cipher.getInstance("AES");
+    cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+    String legacy = Base64.getEncoder().encodeToString(cipher.doFinal(plaintext));
+
+    assertDoesNotThrow(() -> encryptionService.decrypt(legacy));
+    assertEquals(1.0, meterRegistry.get("encryption.legacy.decrypts").counter().count());
+  }
+
+  @Test
+  public void constructorShouldRejectANonAsciiKeyId() {
+    String base64EncodedKey = Base64.getEncoder().encodeToString(secretKey.getEncoded());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new EncryptionService(base64EncodedKey, "cl\u00e9", new SimpleMeterRegistry()));
+  }
+
+  @Test
+  public void decryptShouldStillReadLegacyEcbCiphertext() throws Exception {
+    Cipher cipher = Cipher.getInstance("AES");
+    cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+    String legacy =
+        Base64.getEncoder()
+            .encodeToString(cipher.doFinal("Hello, World!".getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals("Hello, World!", encryptionService.decrypt(legacy));
+    assertEquals(1.0, meterRegistry.get("encryption.legacy.decrypts").counter().count());
+  }
 }
@@ -0,0 +1,138 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.fitznet.fitznetapi.exception.ApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordHashingServiceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+  private PasswordHashingService passwordHashingService;
+
+  @AfterEach
+  void tearDown() {
+    if (passwordHashingService != null) {
+      passwordHashingService.shutdown();
+    }
+  }
+
+  @Test
+  void encodeShouldProduceHashThatMatches() {
+    passwordHashingService =
+        new PasswordHashingService(
+            new BCryptPasswordEncoder(4), 2, 8, meterRegistry, observationRegistry);
+
+    String hash = passwordHashingService.encode("testPassword123").join();
+
+    assertNotEquals("testPassword123", hash);
+    assertTrue(passwordHashingService.matches("testPassword123", hash).join());
+    assertFalse(passwordHashingService.matches("wrongPassword", hash).join());
+    assertEquals(3, meterRegistry.get("password.hashing.duration").timer().count());
+  }
+
+  @Test
+  void shouldRejectWithServiceUnavailableWhenQueueIsFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blockingEncoder =
+        new BCryptPasswordEncoder(4) {
+          @Override
+          public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.encode(rawPassword);
+          }
+        };
+    passwordHashingService =
+        new PasswordHashingService(blockingEncoder, 1, 1, meterRegistry, observationRegistry);
+
+    // One running, one queued, the third has nowhere to go
+    CompletableFuture<String> running = passwordHashingService.encode("first");
+    started.await();
+    CompletableFuture<String> queued = passwordHashingService.encode("second");
+    CompletableFuture<String> rejected = passwordHashingService.encode("third");
+
+    CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+    ApiException cause = assertInstanceOf(ApiException.class, exception.getCause());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, cause.getStatusCode());
+    assertEquals(1.0, meterRegistry.get("password.hashing.queue.size").gauge().value());
+    assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+    // A best-effort rehash is dropped without counting as a rejected request
+    assertThrows(CompletionException.class, passwordHashingService.encodeIfIdle("fourth")::join);
+    assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+    assertEquals(1.0, meterRegistry.get("password.hashing.skipped").counter().count());
+
+    release.countDown();
+    assertNotNull(running.join());
+    assertNotNull(queued.join());
+  }
+
+  @Test
+  void encodeBatchShouldReturnHashesInInputOrderWithoutRejecting() throws Exception {
+    passwordHashingService =
+        new PasswordHashingService(
+            new BCryptPasswordEncoder(4), 2, 1, meterRegistry, observationRegistry);
+    List<String> passwords = List.of("pw-one", "pw-two", "pw-three", "pw-four", "pw-five");
+
+    List<String> hashes = passwordHashingService.encodeBatch(passwords);
+
+    assertEquals(passwords.size(), hashes.size());
+    for (int i = 0; i < passwords.size(); i++) {
+      assertTrue(passwordHashingService.matches(passwords.get(i), hashes.get(i)).join());
+    }
+    assertEquals(0.0, meterRegistry.get("password.hashing.rejected").counter().count());
+  }
+
+  @Test
+  void hashShouldBeObservedUnderTheCallersObservation() {
+    List<Observation.Context> started = new CopyOnWriteArrayList<>();
+    observationRegistry
+        .observationConfig()
+        .observationHandler(
+            new ObservationHandler<>() {
+              @Override
+              public void onStart(Observation.Context context) {
+                started.add(context);
+              }
+
+              @Override
+              public boolean supportsContext(Observation.Context context) {
+                return true;
+              }
+            });
+    passwordHashingService =
+        new PasswordHashingService(
+            new BCryptPasswordEncoder(4), 1, 8, meterRegistry, observationRegistry);
+
+    Observation.createNotStarted("login", observationRegistry)
+        .observe(() -> passwordHashingService.encode("testPassword123").join());
+
+    assertEquals(2, started.size());
+    Observation.Context hash = started.get(1);
+    assertEquals("password.hashing.task", hash.getName());
+    assertEquals("bcrypt encode", hash.getContextualName());
+    assertEquals("login", hash.getParentObservation().getContextView().getName());
+  }
+}
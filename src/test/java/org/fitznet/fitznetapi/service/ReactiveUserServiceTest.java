@@ -0,0 +1,171 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.exception.ApiException;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.ReactiveUserRepository;
+import org.fitznet.fitznetapi.repository.UserFields;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+
+class ReactiveUserServiceTest {
+
+  @Mock private ReactiveUserRepository reactiveUserRepository;
+
+  @Mock private PasswordHashingService passwordHashingService;
+
+  @Mock private UserExistenceFilter userExistenceFilter;
+
+  @Mock private UserChangeBroadcaster userChangeBroadcaster;
+
+  @Mock private TokenRevocationService tokenRevocationService;
+
+  private ReactiveUserService reactiveUserService;
+
+  private AutoCloseable mocks;
+
+  @BeforeEach
+  void setUp() {
+    mocks = MockitoAnnotations.openMocks(this);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    reactiveUserService =
+        new ReactiveUserService(
+            reactiveUserRepository,
+            passwordHashingService,
+            userExistenceFilter,
+            new UserCache(100, Duration.ofMinutes(5), meterRegistry),
+            userChangeBroadcaster,
+            tokenRevocationService,
+            meterRegistry);
+    when(userExistenceFilter.mightContainUsername(any())).thenReturn(true);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    mocks.close();
+  }
+
+  @Test
+  void saveUserShouldHashInsertAndBroadcast() {
+    User user = User.builder().username("alice").email("a@example.com").password("pw").build();
+    when(passwordHashingService.encode("pw"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$hashed"));
+    when(reactiveUserRepository.insert(any(User.class)))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+    User saved = reactiveUserService.saveUser(user).block();
+
+    assertEquals("$2a$10$hashed", saved.getPassword());
+    verify(userExistenceFilter, times(1)).add(saved);
+    verify(userChangeBroadcaster, times(1))
+        .publish(List.of("alice"), Collections.singletonList("a@example.com"));
+  }
+
+  @Test
+  void saveUserShouldMapDuplicateKeyToConflict() {
+    User user = User.builder().username("alice").password("pw").build();
+    when(passwordHashingService.encode("pw"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$hashed"));
+    when(reactiveUserRepository.insert(any(User.class)))
+        .thenReturn(Mono.error(new DuplicateKeyException("index: username_unique")));
+
+    ApiException e =
+        assertThrows(
+            ApiException.class, () -> reactiveUserService.saveUser(user).block());
+
+    assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    verify(userChangeBroadcaster, never()).publish(any(), any());
+  }
+
+  @Test
+  void readByUsernameShouldServeRepeatLookupsFromCache() {
+    User user = User.builder().id("1").username("alice").email("a@example.com").build();
+    when(reactiveUserRepository.findProfileByUsername("alice")).thenReturn(Mono.just(user));
+
+    reactiveUserService.readByUsername("alice", UserFields.ALL).block();
+    User restricted =
+        reactiveUserService.readByUsername("alice", UserFields.parse("email")).block();
+
+    assertNull(restricted.getUsername());
+    assertEquals("a@example.com", restricted.getEmail());
+    verify(reactiveUserRepository, times(1)).findProfileByUsername("alice");
+  }
+
+  @Test
+  void deleteUserShouldReturnNotFoundWithoutBroadcasting() {
+    when(reactiveUserRepository.deleteByUsername("ghost")).thenReturn(Mono.just(0L));
+
+    ApiException e =
+        assertThrows(
+            ApiException.class, () -> reactiveUserService.deleteUser("ghost").block());
+
+    assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    verify(userChangeBroadcaster, never()).publish(any(), any());
+  }
+
+  @Test
+  void updateUserShouldBeEmptyWhenUserDoesNotExist() {
+    UpdateUserRequestDto update = new UpdateUserRequestDto("ghost", "ghost2", null, null, null);
+    when(reactiveUserRepository.findAndModifyUser(update)).thenReturn(Mono.empty());
+
+    assertNull(reactiveUserService.updateUser(update).block());
+    verify(userChangeBroadcaster, never()).publish(any(), any());
+  }
+
+  @Test
+  void authenticateShouldVerifyOnTheHashingPool() {
+    User user = User.builder().username("alice").password("$2a$10$hashed").build();
+    when(reactiveUserRepository.findCredentialsByUsername("alice")).thenReturn(Mono.just(user));
+    when(passwordHashingService.matches("pw", "$2a$10$hashed"))
+        .thenReturn(CompletableFuture.completedFuture(false));
+
+    LoginResult result = reactiveUserService.authenticate("alice", "pw").block();
+
+    assertEquals(LoginResult.Status.BAD_PASSWORD, result.getStatus());
+  }
+
+  @Test
+  void authenticateShouldRehashOnlyWhenThePoolIsIdle() {
+    User user = User.builder().username("alice").password("$2a$10$hashed").build();
+    when(reactiveUserRepository.findCredentialsByUsername("alice")).thenReturn(Mono.just(user));
+    when(passwordHashingService.matches("pw", "$2a$10$hashed"))
+        .thenReturn(CompletableFuture.completedFuture(true));
+    when(passwordHashingService.needsRehash("$2a$10$hashed")).thenReturn(true);
+    when(passwordHashingService.encodeIfIdle("pw"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$12$rehashed"));
+    when(reactiveUserRepository.replacePasswordHash("alice", "$2a$10$hashed", "$2a$12$rehashed"))
+        .thenReturn(Mono.just(true));
+
+    LoginResult result = reactiveUserService.authenticate("alice", "pw").block();
+
+    assertTrue(result.isAuthenticated());
+    verify(reactiveUserRepository, times(1))
+        .replacePasswordHash("alice", "$2a$10$hashed", "$2a$12$rehashed");
+    verify(passwordHashingService, never()).encode(any());
+  }
+
+  @Test
+  void authenticateShouldReportUnknownUser() {
+    when(reactiveUserRepository.findCredentialsByUsername("ghost")).thenReturn(Mono.empty());
+
+    LoginResult result = reactiveUserService.authenticate("ghost", "pw").block();
+
+    assertEquals(LoginResult.Status.UNKNOWN_USER, result.getStatus());
+    verify(passwordHashingService, never()).matches(any(), any());
+  }
+}
@@ -0,0 +1,103 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import org.fitznet.fitznetapi.model.RevokedToken;
+import org.fitznet.fitznetapi.repository.RevokedTokenRepository;
+import org.fitznet.fitznetapi.util.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class TokenRevocationServiceTest {
+
+  @Mock private RevokedTokenRepository revokedTokenRepository;
+
+  @Mock private MongoTemplate mongoTemplate;
+
+  private TokenRevocationService tokenRevocationService;
+
+  private AutoCloseable mocks;
+
+  @BeforeEach
+  public void setUp() {
+    mocks = MockitoAnnotations.openMocks(this);
+    tokenRevocationService =
+        new TokenRevocationService(revokedTokenRepository, mongoTemplate, 1_000, 0.001);
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    if (mocks != null) {
+      mocks.close();
+    }
+  }
+
+  private static VerifiedToken token(String tokenId) {
+    Instant now = Instant.now();
+    return new VerifiedToken("mattlol85", tokenId, now, now.plusSeconds(3600), null);
+  }
+
+  @Test
+  void revokedTokenShouldBeRejectedWithoutLookup() {
+    VerifiedToken token = token("jti-1");
+
+    tokenRevocationService.revoke(token);
+
+    assertTrue(tokenRevocationService.isRevoked(token));
+    verify(revokedTokenRepository, times(1)).save(any(RevokedToken.class));
+    verify(revokedTokenRepository, never()).existsById(anyString());
+  }
+
+  @Test
+  void unknownTokenShouldNotBeRevokedOrLookedUp() {
+    assertFalse(tokenRevocationService.isRevoked(token("jti-unknown")));
+    verify(revokedTokenRepository, never()).existsById(anyString());
+  }
+
+  @Test
+  void tokenWithoutIdShouldNeverBeRevoked() {
+    assertFalse(tokenRevocationService.isRevoked(token(null)));
+  }
+
+  @Test
+  void refreshShouldPickUpRevocationsFromOtherNodes() {
+    VerifiedToken token = token("jti-remote");
+    when(revokedTokenRepository.findByRevokedAtAfter(any(Instant.class)))
+        .thenReturn(
+            List.of(
+                RevokedToken.builder()
+                    .id("jti-remote")
+                    .expiresAt(token.getExpiresAt())
+                    .revokedAt(Instant.now())
+                    .build()));
+
+    assertFalse(tokenRevocationService.isRevoked(token));
+
+    tokenRevocationService.refresh();
+
+    assertTrue(tokenRevocationService.isRevoked(token));
+  }
+
+  @Test
+  void rebuildShouldKeepRevocationsMadeOnThisNode() {
+    VerifiedToken token = token("jti-1");
+    tokenRevocationService.revoke(token);
+    when(revokedTokenRepository.count()).thenReturn(0L);
+    when(revokedTokenRepository.streamByExpiresAtAfter(any(Instant.class)))
+        .thenReturn(Stream.empty());
+
+    tokenRevocationService.rebuild();
+
+    assertTrue(tokenRevocationService.isRevoked(token));
+  }
+}
@@ -0,0 +1,149 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonDocument;
+import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.BatchItemResultDto;
+import org.fitznet.fitznetapi.dto.responses.BatchResultDto;
+import org.fitznet.fitznetapi.repository.UserBulkWriteResult;
+import org.fitznet.fitznetapi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class UserBatchServiceTest {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private PasswordHashingService passwordHashingService;
+
+  @Mock private UserExistenceFilter userExistenceFilter;
+
+  @Mock private UserChangeBroadcaster userChangeBroadcaster;
+
+  private UserBatchService userBatchService;
+
+  private AutoCloseable mocks;
+
+  @BeforeEach
+  void setUp() {
+    mocks = MockitoAnnotations.openMocks(this);
+    UserCache userCache = new UserCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    userBatchService =
+        new UserBatchService(
+            userRepository,
+            passwordHashingService,
+            userExistenceFilter,
+            userCache,
+            userChangeBroadcaster);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    mocks.close();
+  }
+
+  @Test
+  void updateUsersShouldReportEachItemFromOneQueryAndOneBulkWrite() throws Exception {
+    List<UpdateUserRequestDto> updates =
+        List.of(
+            new UpdateUserRequestDto("alice", "alice2", null, null, null),
+            new UpdateUserRequestDto("ghost", null, null, "ghost@example.com", null),
+            new UpdateUserRequestDto("bob", null, null, "taken@example.com", null),
+            new UpdateUserRequestDto("carol", null, null, null, "newPassword123"),
+            new UpdateUserRequestDto("alice", null, null, "again@example.com", null),
+            new UpdateUserRequestDto("dave", null, null, null, null));
+
+    when(userRepository.findExistingUsernames(List.of("alice", "ghost", "bob", "carol")))
+        .thenReturn(Set.of("alice", "bob", "carol"));
+    when(passwordHashingService.encodeBatch(List.of("newPassword123")))
+        .thenReturn(List.of("$2a$10$hashed"));
+    when(userRepository.updateUnordered(anyList()))
+        .thenReturn(
+            new UserBulkWriteResult(
+                2,
+                2,
+                0,
+                List.of(new BulkWriteError(11000, "index: email_unique", new BsonDocument(), 1))));
+
+    BatchResultDto result = userBatchService.updateUsers(updates);
+
+    assertEquals(2, result.getMatched());
+    assertEquals(2, result.getModified());
+    List<BatchItemResultDto> items = result.getItems();
+    assertEquals(new BatchItemResultDto("alice", 1, null, null), items.get(0));
+    assertEquals(new BatchItemResultDto("ghost", 0, 0, "User not found"), items.get(1));
+    assertEquals(new BatchItemResultDto("bob", 1, 0, "Email in use"), items.get(2));
+    assertEquals(new BatchItemResultDto("carol", 1, null, null), items.get(3));
+    assertEquals("Repeated in this batch", items.get(4).getError());
+    assertEquals("No fields to update", items.get(5).getError());
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<UpdateUserRequestDto>> written = ArgumentCaptor.forClass(List.class);
+    verify(userRepository, times(1)).updateUnordered(written.capture());
+    assertEquals(3, written.getValue().size());
+    assertEquals("$2a$10$hashed", written.getValue().get(2).getUpdatedPassword());
+    verify(userChangeBroadcaster, times(1)).publish(eq(List.of("alice", "alice2", "carol")), any());
+  }
+
+  @Test
+  void updateUsersShouldRejectItemsTouchingANameRenamedInTheSameBatch() {
+    List<UpdateUserRequestDto> updates =
+        List.of(
+            new UpdateUserRequestDto("alice", "bob", null, null, null),
+            new UpdateUserRequestDto("bob", null, null, "bob@example.com", null),
+            new UpdateUserRequestDto("carol", "alice", null, null, null),
+            new UpdateUserRequestDto("dave", "dave", null, "dave@example.com", null));
+    when(userRepository.findExistingUsernames(List.of("alice", "dave")))
+        .thenReturn(Set.of("alice", "dave"));
+    when(userRepository.updateUnordered(anyList()))
+        .thenReturn(new UserBulkWriteResult(2, 2, 0, List.of()));
+
+    List<BatchItemResultDto> items = userBatchService.updateUsers(updates).getItems();
+
+    assertNull(items.get(0).getError());
+    assertEquals("Repeated in this batch", items.get(1).getError());
+    assertEquals("Repeated in this batch", items.get(2).getError());
+    // Renaming to the same name is not a rename
+    assertNull(items.get(3).getError());
+  }
+
+  @Test
+  void deleteUsersShouldSkipTheWriteWhenNoUserExists() {
+    when(userRepository.findExistingUsernames(List.of("ghost"))).thenReturn(Set.of());
+
+    BatchResultDto result = userBatchService.deleteUsers(List.of("ghost", " "));
+
+    assertEquals(0, result.getModified());
+    assertEquals("User not found", result.getItems().get(0).getError());
+    assertEquals("username must not be blank", result.getItems().get(1).getError());
+    verify(userRepository, never()).deleteUnordered(any());
+    verify(userChangeBroadcaster, never()).publish(any(), any());
+  }
+
+  @Test
+  void deleteUsersShouldDeleteExistingUsersAndBroadcast() {
+    when(userRepository.findExistingUsernames(List.of("alice", "bob")))
+        .thenReturn(Set.of("alice", "bob"));
+    when(userRepository.deleteUnordered(List.of("alice", "bob")))
+        .thenReturn(new UserBulkWriteResult(0, 0, 2, List.of()));
+
+    BatchResultDto result = userBatchService.deleteUsers(List.of("alice", "bob"));
+
+    assertEquals(2, result.getModified());
+    assertEquals(new BatchItemResultDto("bob", 1, null, null), result.getItems().get(1));
+    verify(userChangeBroadcaster, times(1)).publish(List.of("alice", "bob"), List.of());
+  }
+}
@@ -0,0 +1,121 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fitznet.fitznetapi.model.User;
+import org.junit.jupiter.api.Test;
+
+class UserCacheTest {
+
+  private final UserCache userCache =
+      new UserCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+  private static User user(String username) {
+    return User.builder().username(username).email(username + "@example.com").build();
+  }
+
+  @Test
+  void concurrentMissesShouldShareOneLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    CompletableFuture<User> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                userCache.getByUsername(
+                    "alice",
+                    username -> {
+                      loads.incrementAndGet();
+                      loading.countDown();
+                      assertDoesNotThrow(() -> release.await(5, TimeUnit.SECONDS));
+                      return user(username);
+                    }));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<User> second =
+        CompletableFuture.supplyAsync(
+            () ->
+                userCache.getByUsername(
+                    "alice",
+                    username -> {
+                      loads.incrementAndGet();
+                      return user(username);
+                    }));
+    release.countDown();
+
+    assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void invalidationDuringLoadShouldWin() {
+    userCache.getByUsername(
+        "alice",
+        username -> {
+          userCache.invalidate(List.of(username));
+          return user(username);
+        });
+
+    assertNull(userCache.getIfPresent("alice"));
+  }
+
+  @Test
+  void notFoundShouldNotBeCached() {
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      userCache.getByUsername(
+          "ghost",
+          username -> {
+            loads.incrementAndGet();
+            return null;
+          });
+    }
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void failedLoadShouldRethrowAndNotBeCached() {
+    IllegalStateException failure = new IllegalStateException("Mongo is down");
+
+    assertSame(
+        failure,
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                userCache.getByUsername(
+                    "alice",
+                    username -> {
+                      throw failure;
+                    })));
+    assertEquals("alice", userCache.getByUsername("alice", UserCacheTest::user).getUsername());
+  }
+
+  @Test
+  void loadFailingWithAnErrorShouldNotLeaveWaitersBlocked() {
+    AssertionError failure = new AssertionError("loader bug");
+
+    assertSame(
+        failure,
+        assertThrows(
+            AssertionError.class,
+            () ->
+                userCache.getByUsername(
+                    "alice",
+                    username -> {
+                      throw failure;
+                    })));
+    // Would block forever on the incomplete future if the error had escaped without completing it
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> userCache.getByUsername("alice", UserCacheTest::user).getUsername());
+  }
+}
@@ -0,0 +1,83 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.model.UserChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+class UserChangeBroadcasterTest {
+
+  @Mock private MongoTemplate mongoTemplate;
+
+  @Mock private UserCache userCache;
+
+  @Mock private UserExistenceFilter userExistenceFilter;
+
+  private UserChangeBroadcaster userChangeBroadcaster;
+
+  private AutoCloseable mocks;
+
+  @BeforeEach
+  public void setUp() {
+    mocks = MockitoAnnotations.openMocks(this);
+    userChangeBroadcaster =
+        new UserChangeBroadcaster(mongoTemplate, userCache, userExistenceFilter, 1024, 10);
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    if (mocks != null) {
+      mocks.close();
+    }
+  }
+
+  @Test
+  void publishShouldWriteDistinctNonNullNames() {
+    userChangeBroadcaster.publish(
+        List.of("mattlol85", "mattnew85", "mattnew85"), Arrays.asList("a@b.c", null));
+
+    ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+    verify(mongoTemplate, times(1)).insert(event.capture());
+    assertEquals(List.of("mattlol85", "mattnew85"), event.getValue().getUsernames());
+    assertEquals(List.of("a@b.c"), event.getValue().getEmails());
+    assertNotNull(event.getValue().getOrigin());
+  }
+
+  @Test
+  void applyShouldInvalidateCacheForRemoteChanges() {
+    UserChangedEvent event =
+        UserChangedEvent.builder()
+            .usernames(List.of("mattlol85", "mattnew85"))
+            .emails(List.of("new@example.com"))
+            .origin("another-node")
+            .build();
+
+    userChangeBroadcaster.apply(event);
+
+    verify(userCache, times(1)).invalidate(List.of("mattlol85", "mattnew85"));
+    verify(userExistenceFilter, times(2)).add(any(User.class));
+  }
+
+  @Test
+  void applyShouldIgnoreOwnChanges() {
+    userChangeBroadcaster.publish(List.of("mattlol85"), List.of());
+    ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+    verify(mongoTemplate).insert(event.capture());
+
+    userChangeBroadcaster.apply(event.getValue());
+
+    verify(userCache, never()).invalidate(any());
+    verify(userExistenceFilter, never()).add(any());
+  }
+}
@@ -0,0 +1,151 @@
+package org.fitznet.fitznetapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.fitznet.fitznetapi.dto.responses.ImportResultDto;
+import org.fitznet.fitznetapi.dto.responses.ImportResultDto.Status;
+import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+class UserImportServiceTest {
+
+  @Mock private PasswordHashingService passwordHashingService;
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private UserExistenceFilter userExistenceFilter;
+
+  @Mock private UserChangeBroadcaster userChangeBroadcaster;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private AutoCloseable mocks;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    mocks = MockitoAnnotations.openMocks(this);
+    when(passwordHashingService.encodeBatch(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<String> passwords = invocation.getArgument(0);
+              return passwords.stream().map(raw -> "hash:" + raw).toList();
+            });
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    mocks.close();
+  }
+
+  private UserImportService service(int batchSize) {
+    return new UserImportService(
+        objectMapper,
+        Validation.buildDefaultValidatorFactory().getValidator(),
+        passwordHashingService,
+        userRepository,
+        userExistenceFilter,
+        userChangeBroadcaster,
+        batchSize);
+  }
+
+  private List<ImportResultDto> run(UserImportService service, String... lines) throws Exception {
+    byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    service.importUsers(new ByteArrayInputStream(body), out);
+    return Arrays.stream(out.toString(StandardCharsets.UTF_8).split("\n"))
+        .map(line -> assertDoesNotThrow(() -> objectMapper.readValue(line, ImportResultDto.class)))
+        .toList();
+  }
+
+  @Test
+  void importShouldReportEveryRecordInInputOrder() throws Exception {
+    when(userRepository.insertUnordered(anyList()))
+        .thenReturn(
+            List.of(
+                new BulkWriteError(
+                    11000, "E11000 duplicate key index: email_unique", new BsonDocument(), 1)));
+
+    List<ImportResultDto> results =
+        run(
+            service(100),
+            "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"password1\"}",
+            "not json",
+            "",
+            "{\"username\":\"bob\",\"email\":\"alice@example.com\",\"password\":\"password2\"}",
+            "{\"username\":\"carol\",\"email\":\"carol@example.com\",\"password\":\"short\"}",
+            "{\"username\":\"\",\"email\":\"dave@example.com\",\"password\":\"password4\"}");
+
+    assertEquals(5, results.size());
+    assertEquals(
+        List.of(1L, 2L, 4L, 5L, 6L), results.stream().map(ImportResultDto::getLine).toList());
+    assertEquals(Status.CREATED, results.get(0).getStatus());
+    assertEquals(Status.INVALID, results.get(1).getStatus());
+    assertEquals(Status.DUPLICATE, results.get(2).getStatus());
+    assertEquals("Email in use", results.get(2).getMessage());
+    assertEquals(Status.INVALID, results.get(3).getStatus());
+    assertEquals(Status.INVALID, results.get(4).getStatus());
+
+    verify(passwordHashingService, times(1)).encodeBatch(List.of("password1", "password2"));
+    verify(userExistenceFilter, times(1)).add(any(User.class));
+    verify(userChangeBroadcaster, times(1))
+        .publish(List.of("alice"), List.of("alice@example.com"));
+  }
+
+  @Test
+  void importShouldHashAndWriteOneBatchAtATime() throws Exception {
+    when(userRepository.insertUnordered(anyList())).thenReturn(List.of());
+    String[] lines = new String[5];
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = "{\"username\":\"user" + i + "\",\"password\":\"password" + i + "\"}";
+    }
+
+    List<ImportResultDto> results = run(service(2), lines);
+
+    assertEquals(5, results.size());
+    assertTrue(results.stream().allMatch(result -> result.getStatus() == Status.CREATED));
+    verify(passwordHashingService, times(3)).encodeBatch(anyList());
+    verify(userRepository, times(3)).insertUnordered(anyList());
+  }
+
+  @Test
+  void importShouldReportBatchAsFailedWhenWriteFails() throws Exception {
+    when(userRepository.insertUnordered(anyList()))
+        .thenThrow(new DataAccessResourceFailureException("Mongo is down"));
+
+    List<ImportResultDto> results =
+        run(service(10), "{\"username\":\"alice\",\"password\":\"password1\"}");
+
+    assertEquals(Status.FAILED, results.getFirst().getStatus());
+    verify(userChangeBroadcaster, never()).publish(any(), any());
+  }
+
+  @Test
+  void readLineShouldTruncateOverlongLinesButConsumeThem() throws Exception {
+    String longLine = "x".repeat(UserImportService.MAX_LINE_LENGTH + 10);
+    StringReader reader = new StringReader(longLine + "\nnext\r\n");
+
+    assertEquals(
+        UserImportService.MAX_LINE_LENGTH + 1, UserImportService.readLine(reader).length());
+    assertEquals("next", UserImportService.readLine(reader));
+    assertNull(UserImportService.readLine(reader));
+  }
+}
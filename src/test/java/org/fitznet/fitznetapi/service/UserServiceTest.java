@@ -4,32 +4,62 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
 import org.fitznet.fitznetapi.dto.requests.UpdateUserRequestDto;
+import org.fitznet.fitznetapi.dto.responses.UserPageDto;
+import org.fitznet.fitznetapi.exception.ApiException;
 import org.fitznet.fitznetapi.model.User;
+import org.fitznet.fitznetapi.repository.UserFields;
 import org.fitznet.fitznetapi.repository.UserRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 
 class UserServiceTest {
 
   @Mock private UserRepository userRepository;
 
-  @Mock private PasswordEncoder passwordEncoder;
+  @Mock private PasswordHashingService passwordHashingService;
 
-  @InjectMocks private UserService userService;
+  @Mock private UserExistenceFilter userExistenceFilter;
+
+  @Mock private UserChangeBroadcaster userChangeBroadcaster;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private UserService userService;
 
   private AutoCloseable mocks;
 
   @BeforeEach
   public void setUp() {
     mocks = MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    UserCache userCache = new UserCache(100, Duration.ofMinutes(5), meterRegistry);
+    userService =
+        new UserService(
+            userRepository,
+            passwordHashingService,
+            userExistenceFilter,
+            userCache,
+            userChangeBroadcaster,
+            meterRegistry,
+            Runnable::run);
+    when(userExistenceFilter.mightContainUsername(any())).thenReturn(true);
   }
 
   @AfterEach
@@ -48,13 +78,41 @@ class UserServiceTest {
             .password("testPassword")
             .build();
 
-    when(userRepository.save(any(User.class))).thenReturn(user);
+    when(passwordHashingService.encode("testPassword"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$hashedPassword"));
+    when(userRepository.insert(any(User.class))).thenReturn(user);
 
-    User savedUser = userService.saveUser(user);
+    User savedUser = userService.saveUser(user).join();
 
     assertNotNull(savedUser);
     assertEquals("mattlol85", savedUser.getUsername());
-    verify(userRepository, times(1)).save(any(User.class));
+    assertEquals("$2a$10$hashedPassword", user.getPassword());
+    verify(userRepository, times(1)).insert(any(User.class));
+  }
+
+  @Test
+  void saveUserShouldInsertOnTheIoExecutorNotTheHashingPool() {
+    List<Runnable> ioTasks = new ArrayList<>();
+    userService =
+        new UserService(
+            userRepository,
+            passwordHashingService,
+            userExistenceFilter,
+            new UserCache(100, Duration.ofMinutes(5), meterRegistry),
+            userChangeBroadcaster,
+            meterRegistry,
+            ioTasks::add);
+    User user = User.builder().username("mattlol85").password("testPassword").build();
+    when(passwordHashingService.encode("testPassword"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$hashedPassword"));
+    when(userRepository.insert(any(User.class))).thenReturn(user);
+
+    CompletableFuture<User> saved = userService.saveUser(user);
+
+    verify(userRepository, never()).insert(any(User.class));
+    assertEquals(1, ioTasks.size());
+    ioTasks.get(0).run();
+    assertSame(user, saved.join());
   }
 
   @Test
@@ -78,25 +136,89 @@ class UserServiceTest {
             .password("testPassword")
             .build();
 
-    when(userRepository.findByUsername(username)).thenReturn(user);
+    when(userRepository.findProfileByUsername(username)).thenReturn(user);
 
     User foundUser = userService.readByUsername(username);
 
     assertNotNull(foundUser);
     assertEquals(username, foundUser.getUsername());
-    verify(userRepository, times(1)).findByUsername(username);
+    verify(userRepository, times(1)).findProfileByUsername(username);
   }
 
   @Test
   void readByUsernameShouldReturnNullWhenUserDoesNotExist() {
     String username = "unknownUser";
 
-    when(userRepository.findByUsername(username)).thenReturn(null);
+    when(userRepository.findProfileByUsername(username)).thenReturn(null);
 
     User foundUser = userService.readByUsername(username);
 
     assertNull(foundUser);
-    verify(userRepository, times(1)).findByUsername(username);
+    verify(userRepository, times(1)).findProfileByUsername(username);
+  }
+
+  @Test
+  void readByUsernameShouldServeRepeatLookupsFromCache() {
+    User user = User.builder().username("mattlol85").email("test@example.com").build();
+
+    when(userRepository.findProfileByUsername("mattlol85")).thenReturn(user);
+
+    userService.readByUsername("mattlol85");
+    User cached = userService.readByUsername("mattlol85");
+
+    assertEquals(user, cached);
+    verify(userRepository, times(1)).findProfileByUsername("mattlol85");
+  }
+
+  @Test
+  void readByEmailShouldShareCachedUserWithUsernameLookups() {
+    User user = User.builder().username("mattlol85").email("test@example.com").build();
+
+    when(userRepository.findProfileByEmail("test@example.com")).thenReturn(user);
+
+    userService.readByEmail("test@example.com");
+    userService.readByEmail("test@example.com");
+    userService.readByUsername("mattlol85");
+
+    verify(userRepository, times(1)).findProfileByEmail("test@example.com");
+    verify(userRepository, never()).findProfileByUsername(any());
+  }
+
+  @Test
+  void updateUserShouldInvalidateOldAndNewUsernamesAndBroadcast() {
+    User before = User.builder().username("mattlol85").email("old@example.com").build();
+    User after = User.builder().username("mattnew85").email("new@example.com").build();
+    UpdateUserRequestDto updateUserRequestDto =
+        new UpdateUserRequestDto("mattlol85", "mattnew85", null, "new@example.com", null);
+
+    when(userRepository.findProfileByUsername("mattlol85")).thenReturn(before);
+    when(userRepository.findProfileByEmail("old@example.com")).thenReturn(before);
+    when(userRepository.findAndModifyUser(updateUserRequestDto)).thenReturn(after);
+    userService.readByUsername("mattlol85");
+    userService.readByEmail("old@example.com");
+
+    userService.updateUser(updateUserRequestDto).join();
+    when(userRepository.findProfileByUsername("mattlol85")).thenReturn(null);
+    when(userRepository.findProfileByEmail("old@example.com")).thenReturn(null);
+
+    assertNull(userService.readByUsername("mattlol85"));
+    assertNull(userService.readByEmail("old@example.com"));
+    verify(userChangeBroadcaster, times(1))
+        .publish(List.of("mattlol85", "mattnew85"), List.of("new@example.com"));
+  }
+
+  @Test
+  void deleteUserShouldInvalidateCacheAndBroadcast() {
+    User user = User.builder().username("mattlol85").email("test@example.com").build();
+
+    when(userRepository.findProfileByUsername("mattlol85")).thenReturn(user);
+    userService.readByUsername("mattlol85");
+
+    userService.deleteUser("mattlol85");
+    when(userRepository.findProfileByUsername("mattlol85")).thenReturn(null);
+
+    assertNull(userService.readByUsername("mattlol85"));
+    verify(userChangeBroadcaster, times(1)).publish(List.of("mattlol85"), List.of());
   }
 
   @Test
@@ -114,7 +236,7 @@ class UserServiceTest {
 
     when(userRepository.findAndModifyUser(updateUserRequestDto)).thenReturn(user);
 
-    User result = userService.updateUser(updateUserRequestDto);
+    User result = userService.updateUser(updateUserRequestDto).join();
 
     assertNotNull(result);
     assertEquals(newUsername, result.getUsername());
@@ -133,13 +255,18 @@ class UserServiceTest {
             .build();
     UpdateUserRequestDto updateUserRequestDto =
         new UpdateUserRequestDto(username, null, null, null, newPassword);
+    UpdateUserRequestDto hashedRequestDto =
+        new UpdateUserRequestDto(username, null, null, null, "$2a$10$newHashedPassword");
 
-    when(userRepository.findAndModifyUser(updateUserRequestDto)).thenReturn(user);
+    when(passwordHashingService.encode(newPassword))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$newHashedPassword"));
+    when(userRepository.findAndModifyUser(hashedRequestDto)).thenReturn(user);
 
-    User result = userService.updateUser(updateUserRequestDto);
+    User result = userService.updateUser(updateUserRequestDto).join();
 
     assertNotNull(result);
-    verify(userRepository, times(1)).findAndModifyUser(updateUserRequestDto);
+    // The repository only ever sees the hash, never the raw password
+    verify(userRepository, times(1)).findAndModifyUser(hashedRequestDto);
   }
 
   @Test
@@ -151,14 +278,38 @@ class UserServiceTest {
 
     when(userRepository.findAndModifyUser(updateUserRequestDto)).thenReturn(null);
 
-    User result = userService.updateUser(updateUserRequestDto);
+    User result = userService.updateUser(updateUserRequestDto).join();
 
     assertNull(result);
     verify(userRepository, times(1)).findAndModifyUser(updateUserRequestDto);
   }
 
   @Test
-  void verifyPasswordShouldReturnTrueWhenPasswordMatches() {
+  void authenticateShouldReturnUserWhenPasswordMatches() {
+    String username = "mattlol85";
+    String rawPassword = "testPassword123";
+    User user =
+        User.builder()
+            .username(username)
+            .email("test@example.com")
+            .password("$2a$10$hashedPassword")
+            .build();
+
+    when(userRepository.findCredentialsByUsername(username)).thenReturn(user);
+    when(passwordHashingService.matches(rawPassword, "$2a$10$hashedPassword"))
+        .thenReturn(CompletableFuture.completedFuture(true));
+
+    LoginResult result = userService.authenticate(username, rawPassword).join();
+
+    assertTrue(result.isAuthenticated());
+    assertEquals(user, result.getUser());
+    verify(userRepository, times(1)).findCredentialsByUsername(username);
+    verify(userRepository, never()).findByUsername(any());
+    verify(passwordHashingService, times(1)).matches(rawPassword, "$2a$10$hashedPassword");
+  }
+
+  @Test
+  void authenticateShouldRehashWhenStoredCostIsLower() {
     String username = "mattlol85";
     String rawPassword = "testPassword123";
     User user =
@@ -168,18 +319,42 @@ class UserServiceTest {
             .password("$2a$10$hashedPassword")
             .build();
 
-    when(userRepository.findByUsername(username)).thenReturn(user);
-    when(passwordEncoder.matches(rawPassword, "$2a$10$hashedPassword")).thenReturn(true);
+    when(userRepository.findCredentialsByUsername(username)).thenReturn(user);
+    when(passwordHashingService.matches(rawPassword, "$2a$10$hashedPassword"))
+        .thenReturn(CompletableFuture.completedFuture(true));
+    when(passwordHashingService.needsRehash("$2a$10$hashedPassword")).thenReturn(true);
+    when(passwordHashingService.encodeIfIdle(rawPassword))
+        .thenReturn(CompletableFuture.completedFuture("$2a$12$rehashedPassword"));
 
-    boolean result = userService.verifyPassword(username, rawPassword);
+    LoginResult result = userService.authenticate(username, rawPassword).join();
 
-    assertTrue(result);
-    verify(userRepository, times(1)).findByUsername(username);
-    verify(passwordEncoder, times(1)).matches(rawPassword, "$2a$10$hashedPassword");
+    assertTrue(result.isAuthenticated());
+    verify(userRepository, times(1))
+        .replacePasswordHash(username, "$2a$10$hashedPassword", "$2a$12$rehashedPassword");
   }
 
   @Test
-  void verifyPasswordShouldReturnFalseWhenPasswordDoesNotMatch() {
+  void authenticateShouldNotRehashWhenPasswordDoesNotMatch() {
+    String username = "mattlol85";
+    User user =
+        User.builder()
+            .username(username)
+            .email("test@example.com")
+            .password("$2a$10$hashedPassword")
+            .build();
+
+    when(userRepository.findCredentialsByUsername(username)).thenReturn(user);
+    when(passwordHashingService.matches("wrongPassword", "$2a$10$hashedPassword"))
+        .thenReturn(CompletableFuture.completedFuture(false));
+    when(passwordHashingService.needsRehash("$2a$10$hashedPassword")).thenReturn(true);
+
+    assertFalse(userService.authenticate(username, "wrongPassword").join().isAuthenticated());
+    verify(passwordHashingService, never()).encodeIfIdle(any());
+    verify(userRepository, never()).replacePasswordHash(any(), any(), any());
+  }
+
+  @Test
+  void authenticateShouldReturnBadPasswordWhenPasswordDoesNotMatch() {
     String username = "mattlol85";
     String rawPassword = "wrongPassword";
     User user =
@@ -189,28 +364,74 @@ class UserServiceTest {
             .password("$2a$10$hashedPassword")
             .build();
 
-    when(userRepository.findByUsername(username)).thenReturn(user);
-    when(passwordEncoder.matches(rawPassword, "$2a$10$hashedPassword")).thenReturn(false);
+    when(userRepository.findCredentialsByUsername(username)).thenReturn(user);
+    when(passwordHashingService.matches(rawPassword, "$2a$10$hashedPassword"))
+        .thenReturn(CompletableFuture.completedFuture(false));
 
-    boolean result = userService.verifyPassword(username, rawPassword);
+    LoginResult result = userService.authenticate(username, rawPassword).join();
 
-    assertFalse(result);
-    verify(userRepository, times(1)).findByUsername(username);
-    verify(passwordEncoder, times(1)).matches(rawPassword, "$2a$10$hashedPassword");
+    assertEquals(LoginResult.Status.BAD_PASSWORD, result.getStatus());
+    assertNull(result.getUser());
+    verify(userRepository, times(1)).findCredentialsByUsername(username);
+    verify(userRepository, never()).findByUsername(any());
+    verify(passwordHashingService, times(1)).matches(rawPassword, "$2a$10$hashedPassword");
   }
 
   @Test
-  void verifyPasswordShouldReturnFalseWhenUserDoesNotExist() {
+  void authenticateShouldReturnUnknownUserWhenUserDoesNotExist() {
     String username = "unknownUser";
     String rawPassword = "testPassword123";
 
-    when(userRepository.findByUsername(username)).thenReturn(null);
+    when(userRepository.findCredentialsByUsername(username)).thenReturn(null);
+
+    LoginResult result = userService.authenticate(username, rawPassword).join();
+
+    assertEquals(LoginResult.Status.UNKNOWN_USER, result.getStatus());
+    verify(userRepository, times(1)).findCredentialsByUsername(username);
+    verify(userRepository, never()).findByUsername(any());
+    verify(passwordHashingService, times(0)).matches(any(), any());
+  }
+
+  @Test
+  void authenticateShouldSkipDatabaseWhenFilterRulesUserOut() {
+    when(userExistenceFilter.mightContainUsername("neverExisted")).thenReturn(false);
+
+    LoginResult result = userService.authenticate("neverExisted", "testPassword123").join();
+
+    assertEquals(LoginResult.Status.UNKNOWN_USER, result.getStatus());
+    verify(userRepository, never()).findCredentialsByUsername(any());
+    verify(passwordHashingService, never()).matches(any(), any());
+    assertEquals(0.0, meterRegistry.get("login.db.round.trips").summary().totalAmount());
+  }
+
+  @Test
+  void saveUserShouldAddUserToExistenceFilter() {
+    User user = User.builder().username("mattlol85").password("testPassword").build();
+
+    when(passwordHashingService.encode("testPassword"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$hashedPassword"));
+    when(userRepository.insert(any(User.class))).thenReturn(user);
 
-    boolean result = userService.verifyPassword(username, rawPassword);
+    userService.saveUser(user).join();
 
-    assertFalse(result);
-    verify(userRepository, times(1)).findByUsername(username);
-    verify(passwordEncoder, times(0)).matches(any(), any());
+    assertNotNull(user.getUpdatedAt());
+    verify(userExistenceFilter, times(1)).add(user);
+  }
+
+  @Test
+  void authenticateShouldRecordOneRoundTripPerLogin() {
+    User user = User.builder().username("mattlol85").password("$2a$10$hashedPassword").build();
+
+    when(userRepository.findCredentialsByUsername("mattlol85")).thenReturn(user);
+    when(passwordHashingService.matches("testPassword123", "$2a$10$hashedPassword"))
+        .thenReturn(CompletableFuture.completedFuture(true));
+
+    userService.authenticate("mattlol85", "testPassword123").join();
+    userService.authenticate("unknownUser", "testPassword123").join();
+
+    var roundTrips = meterRegistry.get("login.db.round.trips").summary();
+    assertEquals(2, roundTrips.count());
+    assertEquals(2.0, roundTrips.totalAmount());
   }
 
   @Test
@@ -231,4 +452,129 @@ class UserServiceTest {
     assertEquals("mattlol85", users.getFirst().getUsername());
     verify(userRepository, times(1)).findAll();
   }
+
+  @Test
+  void findPageShouldReturnNextTokenOnlyWhenMoreUsersExist() {
+    User first = User.builder().id("65f000000000000000000001").username("a").build();
+    User second = User.builder().id("65f000000000000000000002").username("b").build();
+    User third = User.builder().id("65f000000000000000000003").username("c").build();
+
+    when(userRepository.findPageAfter(null, 3, UserFields.ALL))
+        .thenReturn(List.of(first, second, third));
+    UserPageDto page = userService.findPage(null, 2, UserFields.ALL);
+    assertEquals(List.of(first, second), page.getUsers());
+    assertEquals("65f000000000000000000002", page.getNext());
+
+    ObjectId after = new ObjectId("65f000000000000000000002");
+    when(userRepository.findPageAfter(after, 3, UserFields.ALL)).thenReturn(List.of(third));
+    UserPageDto last = userService.findPage(page.getNext(), 2, UserFields.ALL);
+    assertEquals(List.of(third), last.getUsers());
+    assertNull(last.getNext());
+  }
+
+  @Test
+  void findPageShouldRejectMalformedToken() {
+    ApiException e =
+        assertThrows(
+            ApiException.class,
+            () -> userService.findPage("not-an-id", 10, UserFields.ALL));
+
+    assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void findPageShouldDropIdsAfterUsingThemForTheToken() {
+    User first = User.builder().id("65f000000000000000000001").username("a").build();
+    User second = User.builder().id("65f000000000000000000002").username("b").build();
+    UserFields usernames = UserFields.parse("username");
+
+    when(userRepository.findPageAfter(null, 2, usernames.withId()))
+        .thenReturn(List.of(first, second));
+
+    UserPageDto page = userService.findPage(null, 1, usernames);
+
+    assertEquals("65f000000000000000000001", page.getNext());
+    assertEquals(1, page.getUsers().size());
+    assertNull(page.getUsers().getFirst().getId());
+    assertEquals("a", page.getUsers().getFirst().getUsername());
+  }
+
+  @Test
+  void saveUserShouldMapDuplicateUsernameToConflict() {
+    User user = User.builder().username("mattlol85").password("testPassword").build();
+
+    when(passwordHashingService.encode("testPassword"))
+        .thenReturn(CompletableFuture.completedFuture("$2a$10$hashedPassword"));
+    when(userRepository.insert(any(User.class)))
+        .thenThrow(
+            new DuplicateKeyException(
+                "E11000 duplicate key error collection: test.users index: username_unique"));
+
+    CompletionException exception =
+        assertThrows(CompletionException.class, () -> userService.saveUser(user).join());
+
+    ApiException cause =
+        assertInstanceOf(ApiException.class, exception.getCause());
+    assertEquals(HttpStatus.CONFLICT, cause.getStatusCode());
+    assertEquals("User already exists", cause.getReason());
+    verify(userExistenceFilter, never()).add(any());
+    verify(userChangeBroadcaster, never()).publish(any(), any());
+  }
+
+  @Test
+  void updateUserShouldMapDuplicateEmailToConflict() {
+    UpdateUserRequestDto updateRequest = new UpdateUserRequestDto();
+    updateRequest.setUsername("mattlol85");
+    updateRequest.setUpdatedEmail("taken@example.com");
+
+    when(userRepository.findAndModifyUser(any()))
+        .thenThrow(
+            new DuplicateKeyException(
+                "E11000 duplicate key error collection: test.users index: email_unique"));
+
+    ApiException exception =
+        assertThrows(ApiException.class, () -> userService.updateUser(updateRequest));
+
+    assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+    assertEquals("Email in use", exception.getReason());
+  }
+
+  @Test
+  void updateUserShouldMapDuplicateEmailToConflictWhateverTheIndexIsCalled() {
+    UpdateUserRequestDto updateRequest = new UpdateUserRequestDto();
+    updateRequest.setUsername("mattlol85");
+    updateRequest.setUpdatedEmail("taken@example.com");
+
+    when(userRepository.findAndModifyUser(any()))
+        .thenThrow(
+            new DuplicateKeyException(
+                "E11000 duplicate key error collection: test.users index: email"
+                    + " dup key: { email: \"taken@example.com\" }"));
+
+    ApiException exception =
+        assertThrows(ApiException.class, () -> userService.updateUser(updateRequest));
+
+    assertEquals("Email in use", exception.getReason());
+  }
+
+  @Test
+  void conflictShouldPreferTheKeyPatternOfACommandError() {
+    MongoCommandException command =
+        new MongoCommandException(
+            BsonDocument.parse(
+                "{ok: 0, code: 11000, codeName: 'DuplicateKey',"
+                    + " errmsg: 'E11000 duplicate key error collection: test.users index: users_2',"
+                    + " keyPattern: {email: 1}, keyValue: {email: 'taken@example.com'}}"),
+            new ServerAddress());
+
+    ApiException exception =
+        UserService.conflict(new DuplicateKeyException(command.getMessage(), command));
+
+    assertEquals("Email in use", exception.getReason());
+    assertEquals(
+        "User already exists",
+        UserService.conflictReason(
+            null, "E11000 index: username_1 dup key: { username: \"mattlol85\" }"));
+  }
 }
@@ -0,0 +1,49 @@
+package org.fitznet.fitznetapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void mightContainShouldNeverMissInsertedValues() {
+    BloomFilter filter = BloomFilter.create(1_000, 0.01);
+    String[] values = new String[1_000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = UUID.randomUUID().toString();
+      filter.put(values[i]);
+    }
+
+    for (String value : values) {
+      assertTrue(filter.mightContain(value));
+    }
+  }
+
+  @Test
+  void falsePositiveRateShouldStayNearConfiguredRate() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("present-" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (filter.mightContain("absent-" + i)) {
+        falsePositives++;
+      }
+    }
+
+    // Allow generous slack over the 1% target so the test isn't flaky
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+  }
+
+  @Test
+  void emptyFilterShouldContainNothing() {
+    BloomFilter filter = BloomFilter.create(100, 0.01);
+
+    assertFalse(filter.mightContain("anything"));
+  }
+}
@@ -0,0 +1,104 @@
+package org.fitznet.fitznetapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import org.fitznet.fitznetapi.config.JwtProperties;
+import org.junit.jupiter.api.Test;
+
+class JwtKeyringTest {
+
+  private static final String OLD_SECRET = "oldSecretKeyForJwtTokenGenerationInTestEnvironmentOnly";
+  private static final String NEW_SECRET = "newSecretKeyForJwtTokenGenerationInTestEnvironmentOnly";
+
+  private static JwtProperties properties(String keyId, String secret) {
+    JwtProperties properties = new JwtProperties();
+    properties.setKeyId(keyId);
+    properties.setSecret(secret);
+    properties.setExpiration(60_000L);
+    return properties;
+  }
+
+  private static String signedWith(String secret, String kid) {
+    var builder = Jwts.builder();
+    if (kid != null) {
+      builder.header().keyId(kid).and();
+    }
+    return builder
+        .subject("testuser")
+        .expiration(new Date(System.currentTimeMillis() + 60_000L))
+        .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+        .compact();
+  }
+
+  @Test
+  void issuedTokensShouldCarryActiveKeyId() {
+    JwtUtil jwtUtil = new JwtUtil(properties("2026-10", NEW_SECRET), new SimpleMeterRegistry());
+
+    String token = jwtUtil.generateToken("testuser");
+
+    String kid =
+        Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(NEW_SECRET.getBytes(StandardCharsets.UTF_8)))
+            .build()
+            .parseSignedClaims(token)
+            .getHeader()
+            .getKeyId();
+    assertEquals("2026-10", kid);
+  }
+
+  @Test
+  void tokensSignedWithRetiredKeyShouldStillVerify() {
+    JwtProperties rotated = properties("2026-10", NEW_SECRET);
+    rotated.setVerificationKeys(Map.of("primary", OLD_SECRET));
+    JwtUtil jwtUtil = new JwtUtil(rotated, new SimpleMeterRegistry());
+
+    String oldToken =
+        new JwtUtil(properties("primary", OLD_SECRET), new SimpleMeterRegistry())
+            .generateToken("testuser");
+
+    assertEquals("testuser", jwtUtil.verify(oldToken).orElseThrow().getSubject());
+    assertTrue(jwtUtil.verify(jwtUtil.generateToken("other")).isPresent());
+  }
+
+  @Test
+  void tokensWithUnknownKeyIdShouldBeRejected() {
+    JwtUtil jwtUtil = new JwtUtil(properties("primary", NEW_SECRET), new SimpleMeterRegistry());
+
+    assertTrue(jwtUtil.verify(signedWith(NEW_SECRET, "unknown")).isEmpty());
+  }
+
+  @Test
+  void tokensWithoutKeyIdShouldUseLegacyKey() {
+    JwtProperties rotated = properties("2026-10", NEW_SECRET);
+    rotated.setVerificationKeys(Map.of("primary", OLD_SECRET));
+    rotated.setLegacyKeyId("primary");
+    JwtUtil jwtUtil = new JwtUtil(rotated, new SimpleMeterRegistry());
+
+    assertTrue(jwtUtil.verify(signedWith(OLD_SECRET, null)).isPresent());
+    assertTrue(jwtUtil.verify(signedWith(NEW_SECRET, null)).isEmpty());
+  }
+
+  @Test
+  void findShouldReturnNullForUnknownKeyId() {
+    JwtKeyring keyring = JwtKeyring.from(properties("primary", NEW_SECRET));
+
+    assertNull(keyring.find("missing"));
+  }
+
+  @Test
+  void activeKeyIdMustNotAlsoBeVerifyOnly() {
+    JwtProperties properties = properties("primary", NEW_SECRET);
+    properties.setVerificationKeys(Map.of("primary", OLD_SECRET));
+
+    assertThrows(IllegalStateException.class, () -> JwtKeyring.from(properties));
+  }
+}
@@ -4,23 +4,30 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import java.util.Date;
+import java.util.Optional;
 import javax.crypto.SecretKey;
 
+import org.fitznet.fitznetapi.config.JwtProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
-@SpringBootTest(classes = JwtUtil.class)
+@SpringBootTest(classes = {JwtUtil.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(JwtProperties.class)
 @TestPropertySource(properties = {
         "jwt.secret=testSecretKeyForJwtTokenGenerationInTestEnvironmentOnly",
         "jwt.expiration=86400000"
@@ -30,6 +37,9 @@ class JwtUtilTest {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private String testUsername;
 
     @BeforeEach
@@ -111,6 +121,18 @@ class JwtUtilTest {
         assertFalse(isValid);
     }
 
+    @Test
+    void verifyShouldReturnTheUserIdOnlyWhenTheTokenCarriesOne() {
+        VerifiedToken withId =
+                jwtUtil.verify(jwtUtil.generateToken(testUsername, "665f1c2e9b1d4a0012345678"))
+                        .orElseThrow();
+        VerifiedToken withoutId = jwtUtil.verify(jwtUtil.generateToken(testUsername)).orElseThrow();
+
+        assertEquals("665f1c2e9b1d4a0012345678", withId.getUserId());
+        assertEquals(testUsername, withId.getSubject());
+        assertNull(withoutId.getUserId());
+    }
+
     @Test
     void validateTokenShouldReturnFalseForInvalidToken() {
         String invalidToken = "invalid.jwt.token";
@@ -187,5 +209,86 @@ class JwtUtilTest {
         assertEquals(user2, jwtUtil.extractUsername(token2));
         assertNotEquals(jwtUtil.extractUsername(token1), jwtUtil.extractUsername(token2));
     }
-}
+    @Test
+    void verifyShouldReturnClaimsForValidToken() {
+        String token = jwtUtil.generateToken(testUsername);
+
+        Optional<VerifiedToken> verified = jwtUtil.verify(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals(testUsername, verified.get().getSubject());
+        assertNotNull(verified.get().getIssuedAt());
+        assertTrue(verified.get().getExpiresAt().isAfter(verified.get().getIssuedAt()));
+    }
+
+    @Test
+    void verifyShouldReturnEmptyForExpiredToken() {
+        SecretKey key = Keys.hmacShaKeyFor(
+                "testSecretKeyForJwtTokenGenerationInTestEnvironmentOnly".getBytes());
+
+        String expiredToken =
+                Jwts.builder()
+                        .subject(testUsername)
+                        .issuedAt(new Date(System.currentTimeMillis() - 10000))
+                        .expiration(new Date(System.currentTimeMillis() - 1000))
+                        .signWith(key)
+                        .compact();
 
+        assertTrue(jwtUtil.verify(expiredToken).isEmpty());
+    }
+
+    @Test
+    void verifyShouldReturnEmptyForTokenSignedWithDifferentKey() {
+        SecretKey otherKey = Keys.hmacShaKeyFor(
+                "someOtherSecretKeyThatIsLongEnoughForHmacSha256Signing".getBytes());
+
+        String forgedToken =
+                Jwts.builder()
+                        .subject(testUsername)
+                        .expiration(new Date(System.currentTimeMillis() + 60000))
+                        .signWith(otherKey)
+                        .compact();
+
+        assertTrue(jwtUtil.verify(forgedToken).isEmpty());
+    }
+
+    @Test
+    void verifyShouldTimeTokensByOutcome() {
+        long verified = verifyCount("verified");
+        long rejected = verifyCount("rejected");
+
+        jwtUtil.verify(jwtUtil.generateToken(testUsername));
+        jwtUtil.verify(jwtUtil.generateToken(testUsername) + "x");
+
+        assertEquals(verified + 1, verifyCount("verified"));
+        assertEquals(rejected + 1, verifyCount("rejected"));
+    }
+
+    private long verifyCount(String outcome) {
+        return meterRegistry.get("jwt.verify").tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void verifyShouldReturnEmptyForGarbage() {
+        assertTrue(jwtUtil.verify("invalid.jwt.token").isEmpty());
+        assertTrue(jwtUtil.verify("").isEmpty());
+        assertTrue(jwtUtil.verify(null).isEmpty());
+    }
+
+    @Test
+    void isWellFormedShouldAcceptIssuedTokens() {
+        assertTrue(JwtUtil.isWellFormed(jwtUtil.generateToken(testUsername)));
+    }
+
+    @Test
+    void isWellFormedShouldRejectStructurallyInvalidTokens() {
+        assertFalse(JwtUtil.isWellFormed(null));
+        assertFalse(JwtUtil.isWellFormed("malformed-token-without-proper-structure"));
+        assertFalse(JwtUtil.isWellFormed("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ4In0"));
+        assertFalse(JwtUtil.isWellFormed("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ4In0."));
+        assertFalse(JwtUtil.isWellFormed("eyJhbGciOiJIUzI1NiJ9..c2ln"));
+        assertFalse(JwtUtil.isWellFormed("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ4In0.c2ln.extra"));
+        assertFalse(JwtUtil.isWellFormed("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJ4In0.c2l=n"));
+        assertFalse(JwtUtil.isWellFormed("eyJ" + "a".repeat(5000) + ".b.c"));
+    }
+}
@@ -0,0 +1,50 @@
+package org.fitznet.fitznetapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ScalableBloomFilterTest {
+
+  @Test
+  void shouldGrowPastInitialCapacityWithoutFalseNegatives() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+    for (int i = 0; i < 1_000; i++) {
+      filter.put("user-" + i);
+    }
+
+    assertTrue(filter.stageCount() > 1);
+    for (int i = 0; i < 1_000; i++) {
+      assertTrue(filter.mightContain("user-" + i));
+    }
+  }
+
+  @Test
+  void falsePositiveRateShouldHoldAfterGrowing() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+    for (int i = 0; i < 5_000; i++) {
+      filter.put("present-" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (filter.mightContain("absent-" + i)) {
+        falsePositives++;
+      }
+    }
+
+    // Allow generous slack over the 1% target so the test isn't flaky
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+  }
+
+  @Test
+  void newFilterShouldBeEmptyWithOneStage() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+    assertFalse(filter.mightContain("anything"));
+    assertEquals(1, filter.stageCount());
+    assertEquals(0, filter.approximateCount());
+  }
+}
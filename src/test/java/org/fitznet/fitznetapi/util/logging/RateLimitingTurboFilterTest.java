@@ -0,0 +1,73 @@
+package org.fitznet.fitznetapi.util.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimitingTurboFilterTest {
+
+  private static final String TEMPLATE = "Request for /user/readAll - after: {}, limit: {}";
+
+  private final Logger logger = new LoggerContext().getLogger("test");
+
+  private final RateLimitingTurboFilter filter = new RateLimitingTurboFilter();
+
+  private long now;
+
+  @BeforeEach
+  void setUp() {
+    logger.setLevel(Level.INFO);
+    filter.setPermitsPerSecond(2);
+    filter.clock = () -> now;
+    filter.start();
+  }
+
+  private FilterReply info(String format) {
+    return filter.decide(null, logger, Level.INFO, format, null, null);
+  }
+
+  @Test
+  void templateShouldBeLimitedWithinEachSecond() {
+    long suppressed = RateLimitingTurboFilter.suppressed();
+
+    assertEquals(FilterReply.NEUTRAL, info(TEMPLATE));
+    assertEquals(FilterReply.NEUTRAL, info(TEMPLATE));
+    assertEquals(FilterReply.DENY, info(TEMPLATE));
+    assertEquals(suppressed + 1, RateLimitingTurboFilter.suppressed());
+
+    now += TimeUnit.SECONDS.toNanos(1);
+    assertEquals(FilterReply.NEUTRAL, info(TEMPLATE));
+  }
+
+  @Test
+  void templatesShouldBeLimitedIndependently() {
+    info(TEMPLATE);
+    info(TEMPLATE);
+
+    assertEquals(FilterReply.DENY, info(TEMPLATE));
+    assertEquals(FilterReply.NEUTRAL, info("Request for /user/read - {}"));
+  }
+
+  @Test
+  void warningsShouldNeverBeLimited() {
+    for (int i = 0; i < 5; i++) {
+      assertEquals(
+          FilterReply.NEUTRAL, filter.decide(null, logger, Level.WARN, TEMPLATE, null, null));
+    }
+  }
+
+  @Test
+  void disabledLevelsShouldNotUsePermits() {
+    for (int i = 0; i < 5; i++) {
+      filter.decide(null, logger, Level.DEBUG, TEMPLATE, null, null);
+    }
+
+    assertEquals(FilterReply.NEUTRAL, info(TEMPLATE));
+  }
+}